@@ -0,0 +1,273 @@
+package com.hackernews.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD limit on in-flight requests driven by a latency gradient.
+ * <p>
+ * A short and a long exponentially weighted moving average of request latency are
+ * tracked. While the short average stays within {@link #LATENCY_TOLERANCE} of the long
+ * one and the limit is actually being used, the limit grows by roughly one per window.
+ * Rising latency shrinks it multiplicatively, and a 429 halves it.
+ * <p>
+ * Permits are handed out by {@link Priority}: interactive callers take any free permit
+ * ahead of waiting background callers, except that background work waiting for a permit
+ * is always allowed up to its minimum share of the limit, so it never starves.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+    private static final double SHORT_SMOOTHING = 0.2;
+    private static final double LONG_SMOOTHING = 0.02;
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double RATE_LIMIT_BACKOFF = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backgroundMinShare;
+    private final ClientMetrics metrics;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int backgroundInFlight;
+    private int interactiveWaiting;
+    private int backgroundWaiting;
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, ClientMetrics metrics) {
+        this(initialLimit, minLimit, maxLimit, 0.1, metrics);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backgroundMinShare,
+                                      ClientMetrics metrics) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency bounds: " + minLimit + ".." + maxLimit);
+        }
+        if (backgroundMinShare < 0 || backgroundMinShare > 1) {
+            throw new IllegalArgumentException("Invalid background share: " + backgroundMinShare);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backgroundMinShare = backgroundMinShare;
+        this.metrics = metrics;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        metrics.recordConcurrencyLimit((int) limit, 0);
+    }
+
+    public void acquire() throws InterruptedException {
+        acquire(Priority.INTERACTIVE);
+    }
+
+    public void acquire(Priority priority) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting(priority, 1);
+            try {
+                while (!mayAcquire(priority)) {
+                    permitAvailable.await();
+                }
+            } finally {
+                waiting(priority, -1);
+            }
+            takePermit(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return tryAcquire(Priority.INTERACTIVE, timeout, unit);
+    }
+
+    // Returns false if no permit became available within the timeout
+    public boolean tryAcquire(Priority priority, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waiting(priority, 1);
+            try {
+                while (!mayAcquire(priority)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+            } finally {
+                waiting(priority, -1);
+            }
+            takePermit(priority);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long latencyNanos) {
+        onSuccess(Priority.INTERACTIVE, latencyNanos);
+    }
+
+    public void onSuccess(Priority priority, long latencyNanos) {
+        lock.lock();
+        try {
+            int inFlightAtCompletion = inFlight;
+            releasePermit(priority);
+            sampleLatency(latencyNanos, inFlightAtCompletion);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        onFailure(Priority.INTERACTIVE);
+    }
+
+    public void onFailure(Priority priority) {
+        lock.lock();
+        try {
+            releasePermit(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called for every 429, including those absorbed by a retry, so it does not release a permit
+    public void onRateLimited() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            // Concurrent 429s from the same burst count as one congestion signal
+            if (now - lastDecreaseNanos < Math.max(shortLatencyNanos, 100_000_000L)) {
+                return;
+            }
+            lastDecreaseNanos = now;
+            setLimit(limit * RATE_LIMIT_BACKOFF);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight(Priority priority) {
+        lock.lock();
+        try {
+            return priority == Priority.BACKGROUND ? backgroundInFlight : inFlight - backgroundInFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean mayAcquire(Priority priority) {
+        int currentLimit = (int) limit;
+        if (inFlight >= currentLimit) {
+            return false;
+        }
+        int backgroundReserve = backgroundReserve(currentLimit);
+        if (priority == Priority.BACKGROUND) {
+            return interactiveWaiting == 0 || backgroundInFlight < backgroundReserve;
+        }
+        // Leave room for waiting background work that is below its guaranteed share
+        int owedToBackground = backgroundWaiting == 0 ? 0 : Math.max(0, backgroundReserve - backgroundInFlight);
+        return inFlight < currentLimit - owedToBackground;
+    }
+
+    // At least one permit once the share is non-zero, but never the whole limit
+    private int backgroundReserve(int currentLimit) {
+        if (backgroundMinShare == 0) {
+            return 0;
+        }
+        return Math.min(currentLimit - 1, Math.max(1, (int) Math.ceil(currentLimit * backgroundMinShare)));
+    }
+
+    private void waiting(Priority priority, int delta) {
+        int remaining;
+        if (priority == Priority.BACKGROUND) {
+            remaining = backgroundWaiting += delta;
+        } else {
+            remaining = interactiveWaiting += delta;
+        }
+        if (remaining == 0) {
+            // The other priority may have been held back only by these waiters
+            permitAvailable.signalAll();
+        }
+    }
+
+    private void takePermit(Priority priority) {
+        inFlight++;
+        if (priority == Priority.BACKGROUND) {
+            backgroundInFlight++;
+        }
+        metrics.recordInFlight(inFlight);
+    }
+
+    private void releasePermit(Priority priority) {
+        inFlight--;
+        if (priority == Priority.BACKGROUND) {
+            backgroundInFlight--;
+        }
+        metrics.recordInFlight(inFlight);
+        // Waiters of both priorities share the condition and re-check who may go
+        permitAvailable.signalAll();
+    }
+
+    private void sampleLatency(long latencyNanos, int inFlightAtCompletion) {
+        if (longLatencyNanos == 0) {
+            shortLatencyNanos = latencyNanos;
+            longLatencyNanos = latencyNanos;
+            return;
+        }
+        shortLatencyNanos += SHORT_SMOOTHING * (latencyNanos - shortLatencyNanos);
+        longLatencyNanos += LONG_SMOOTHING * (latencyNanos - longLatencyNanos);
+
+        if (shortLatencyNanos > longLatencyNanos * LATENCY_TOLERANCE) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= shortLatencyNanos) {
+                lastDecreaseNanos = now;
+                setLimit(limit * LATENCY_BACKOFF);
+            }
+        } else if (inFlightAtCompletion * 2 >= (int) limit) {
+            // Only grow when the current limit is actually the bottleneck
+            setLimit(limit + 1.0 / limit);
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        int previous = (int) limit;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        int current = (int) limit;
+        if (current != previous) {
+            logger.debug("Concurrency limit changed {} -> {} (short latency {}ms, baseline {}ms)",
+                    previous, current, (long) (shortLatencyNanos / 1_000_000), (long) (longLatencyNanos / 1_000_000));
+            metrics.recordConcurrencyLimit(current, current - previous);
+            if (current > previous) {
+                permitAvailable.signalAll();
+            }
+        }
+    }
+}
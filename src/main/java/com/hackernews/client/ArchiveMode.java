@@ -0,0 +1,14 @@
+package com.hackernews.client;
+
+public enum ArchiveMode {
+    // Talk to the live API
+    OFF,
+    // Talk to the live API and append every exchange to the archive file
+    RECORD,
+    // Serve responses from the archive file without touching the network
+    REPLAY;
+
+    static ArchiveMode fromProperty(String value) {
+        return value == null || value.isBlank() ? OFF : valueOf(value.trim().toUpperCase());
+    }
+}
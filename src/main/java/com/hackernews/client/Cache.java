@@ -0,0 +1,65 @@
+package com.hackernews.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiring key-value cache used for items, users and lists. Implementations keep expired
+ * entries until they need the room, so callers that can serve stale values may still find them.
+ */
+public interface Cache<K, V> {
+
+    // Returns the value if present and not expired
+    V get(K key);
+
+    // Returns the entry even if it has expired, or null if there is none
+    Lookup<V> lookup(K key);
+
+    void put(K key, V value);
+
+    void invalidate(K key);
+
+    void clear();
+
+    int size();
+
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    default double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /** A cached value with its age, returned whether or not it has expired. */
+    final class Lookup<V> {
+        private final V value;
+        private final long ageNanos;
+        private final long ttlNanos;
+
+        Lookup(V value, long ageNanos, long ttlNanos) {
+            this.value = value;
+            this.ageNanos = ageNanos;
+            this.ttlNanos = ttlNanos;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public long getAgeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(ageNanos);
+        }
+
+        public boolean isExpired() {
+            return ageNanos > ttlNanos;
+        }
+
+        // How long ago the entry expired, or zero while it is fresh
+        public long getExpiredNanos() {
+            return Math.max(0, ageNanos - ttlNanos);
+        }
+    }
+}
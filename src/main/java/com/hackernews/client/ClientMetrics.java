@@ -0,0 +1,252 @@
+package com.hackernews.client;
+
+import com.hackernews.model.LatencyPhase;
+import com.hackernews.model.RequestTimings;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ClientMetrics {
+    private static final int HISTOGRAM_PRECISION = 3;
+
+    private final LongAdder requestsSent = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder identityResponses = new LongAdder();
+    private final LongAdder concurrencyLimitIncreases = new LongAdder();
+    private final LongAdder concurrencyLimitDecreases = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesDenied = new LongAdder();
+    private final LongAdder circuitBreakerTransitions = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder retriesGranted = new LongAdder();
+    private final LongAdder retriesDenied = new LongAdder();
+    private final LongAdder staleRevalidations = new LongAdder();
+    private final LongAdder staleOnError = new LongAdder();
+    private final LongAdder knownMissingHits = new LongAdder();
+    private final Map<LatencyPhase, Histogram> phaseLatency = new EnumMap<>(LatencyPhase.class);
+    private final Histogram totalLatency = new ConcurrentHistogram(HISTOGRAM_PRECISION);
+    private final long expectedIntervalNanos;
+    private volatile int concurrencyLimit;
+    private volatile int inFlightRequests;
+
+    public ClientMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param expectedInterval the interval at which callers issue requests; when set, total
+     *                         latencies longer than it are back-filled to correct for
+     *                         coordinated omission
+     */
+    public ClientMetrics(Duration expectedInterval) {
+        this.expectedIntervalNanos = expectedInterval == null ? 0 : expectedInterval.toNanos();
+        for (LatencyPhase phase : LatencyPhase.values()) {
+            phaseLatency.put(phase, new ConcurrentHistogram(HISTOGRAM_PRECISION));
+        }
+    }
+
+    void recordRequestSent() {
+        requestsSent.increment();
+    }
+
+    void recordBody(String contentEncoding, long wireBytes, long decodedBytes) {
+        compressedBytes.add(wireBytes);
+        uncompressedBytes.add(decodedBytes);
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity")) {
+            identityResponses.increment();
+        } else {
+            compressedResponses.increment();
+        }
+    }
+
+    void recordTimings(RequestTimings timings) {
+        for (Map.Entry<LatencyPhase, Histogram> entry : phaseLatency.entrySet()) {
+            long nanos = timings.getNanos(entry.getKey());
+            if (nanos > 0) {
+                entry.getValue().recordValue(nanos);
+            }
+        }
+        if (expectedIntervalNanos > 0) {
+            totalLatency.recordValueWithExpectedInterval(timings.getTotalNanos(), expectedIntervalNanos);
+        } else {
+            totalLatency.recordValue(timings.getTotalNanos());
+        }
+    }
+
+    void recordConcurrencyLimit(int limit, int delta) {
+        concurrencyLimit = limit;
+        if (delta > 0) {
+            concurrencyLimitIncreases.increment();
+        } else if (delta < 0) {
+            concurrencyLimitDecreases.increment();
+        }
+    }
+
+    void recordInFlight(int inFlight) {
+        inFlightRequests = inFlight;
+    }
+
+    void recordHedgeSent() {
+        hedgesSent.increment();
+    }
+
+    void recordHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    void recordHedgeDenied() {
+        hedgesDenied.increment();
+    }
+
+    void recordCircuitBreakerTransition() {
+        circuitBreakerTransitions.increment();
+    }
+
+    void recordRejectedCall() {
+        rejectedCalls.increment();
+    }
+
+    void recordRetryBudgetDecision(boolean granted) {
+        if (granted) {
+            retriesGranted.increment();
+        } else {
+            retriesDenied.increment();
+        }
+    }
+
+    void recordStaleServed(boolean revalidating) {
+        if (revalidating) {
+            staleRevalidations.increment();
+        } else {
+            staleOnError.increment();
+        }
+    }
+
+    void recordKnownMissingHit() {
+        knownMissingHits.increment();
+    }
+
+    // HTTP requests sent, counting every retry and hedge but no cache hit
+    public long getRequestsSent() {
+        return requestsSent.sum();
+    }
+
+    // Bytes as received on the wire, i.e. before decompression
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    // Bytes handed to the JSON parser after decompression
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    public long getIdentityResponses() {
+        return identityResponses.sum();
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public int getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    public long getConcurrencyLimitIncreases() {
+        return concurrencyLimitIncreases.sum();
+    }
+
+    public long getConcurrencyLimitDecreases() {
+        return concurrencyLimitDecreases.sum();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    // Hedges that completed successfully before the primary request
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    // Hedges that would have been sent but were refused by the hedging budget
+    public long getHedgesDenied() {
+        return hedgesDenied.sum();
+    }
+
+    public long getCircuitBreakerTransitions() {
+        return circuitBreakerTransitions.sum();
+    }
+
+    // Calls refused without reaching the network by an open breaker or a full bulkhead
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getRetriesGranted() {
+        return retriesGranted.sum();
+    }
+
+    // Failures returned to the caller without retrying because the retry budget was spent
+    public long getRetriesDenied() {
+        return retriesDenied.sum();
+    }
+
+    // Expired values returned at once while a background refresh ran
+    public long getStaleRevalidations() {
+        return staleRevalidations.sum();
+    }
+
+    // Expired values returned in place of a failed or rate limited fetch
+    public long getStaleOnError() {
+        return staleOnError.sum();
+    }
+
+    // Item lookups answered by the negative cache or the dead item filter without a request
+    public long getKnownMissingHits() {
+        return knownMissingHits.sum();
+    }
+
+    // Nanosecond latencies of one phase, counting only calls that spent time in it
+    public Histogram getLatencyHistogram(LatencyPhase phase) {
+        return phaseLatency.get(phase).copy();
+    }
+
+    // End-to-end nanosecond latencies of client calls, corrected for coordinated omission if configured
+    public Histogram getTotalLatencyHistogram() {
+        return totalLatency.copy();
+    }
+
+    public double getCompressionRatio() {
+        long wire = getCompressedBytes();
+        return wire == 0 ? 1.0 : (double) getUncompressedBytes() / wire;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClientMetrics{requestsSent=%d, compressedBytes=%d, uncompressedBytes=%d, ratio=%.2f, "
+                        + "concurrencyLimit=%d, inFlight=%d, limitIncreases=%d, limitDecreases=%d, "
+                        + "hedgesSent=%d, hedgesWon=%d, hedgesDenied=%d, "
+                        + "circuitBreakerTransitions=%d, rejectedCalls=%d, "
+                        + "retriesGranted=%d, retriesDenied=%d, staleRevalidations=%d, staleOnError=%d, knownMissingHits=%d, p50=%.1fms, p99=%.1fms}",
+                getRequestsSent(), getCompressedBytes(), getUncompressedBytes(), getCompressionRatio(),
+                getConcurrencyLimit(), getInFlightRequests(),
+                getConcurrencyLimitIncreases(), getConcurrencyLimitDecreases(),
+                getHedgesSent(), getHedgesWon(), getHedgesDenied(),
+                getCircuitBreakerTransitions(), getRejectedCalls(),
+                getRetriesGranted(), getRetriesDenied(), getStaleRevalidations(), getStaleOnError(), getKnownMissingHits(),
+                totalLatency.getValueAtPercentile(50) / 1e6, totalLatency.getValueAtPercentile(99) / 1e6);
+    }
+}
@@ -0,0 +1,22 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CommentTreePolicy {
+    // Only the first kidsPerLevel kids of each item are expanded, in the order HN displays them
+    @Builder.Default
+    private int kidsPerLevel = 5;
+    // Levels below the root; kids of items at this depth are left unexpanded
+    @Builder.Default
+    private int maxDepth = 3;
+    // Total comments fetched, not counting the root
+    @Builder.Default
+    private int maxItems = 50;
+
+    public static CommentTreePolicy defaults() {
+        return CommentTreePolicy.builder().build();
+    }
+}
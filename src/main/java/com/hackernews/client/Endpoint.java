@@ -0,0 +1,8 @@
+package com.hackernews.client;
+
+// Upstream endpoints that get their own circuit breaker and bulkhead
+public enum Endpoint {
+    LIST,
+    ITEM,
+    USER
+}
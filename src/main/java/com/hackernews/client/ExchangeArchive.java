@@ -0,0 +1,134 @@
+package com.hackernews.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary archive of recorded HTTP exchanges. Each record holds the request path, status,
+ * response headers, the time the exchange took and the body exactly as it came off the
+ * wire, so compressed bodies stay compressed. Records are appended, so one file can
+ * collect the exchanges of several clients and runs.
+ */
+final class ExchangeArchive {
+    private static final int MAGIC = 0x484E4152; // "HNAR"
+    private static final int VERSION = 1;
+    private static final Map<Path, ExchangeArchive> LOADED = new ConcurrentHashMap<>();
+
+    static final class Exchange {
+        final String path;
+        final int statusCode;
+        final Map<String, String> headers;
+        final long latencyNanos;
+        final byte[] body;
+
+        Exchange(String path, int statusCode, Map<String, String> headers, long latencyNanos, byte[] body) {
+            this.path = path;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.latencyNanos = latencyNanos;
+            this.body = body;
+        }
+    }
+
+    private final Map<String, List<Exchange>> exchangesByPath;
+    private final int size;
+
+    private ExchangeArchive(Map<String, List<Exchange>> exchangesByPath, int size) {
+        this.exchangesByPath = exchangesByPath;
+        this.size = size;
+    }
+
+    // Archives are immutable once loaded, so every client replaying the same file shares one copy
+    static ExchangeArchive load(Path file) {
+        return LOADED.computeIfAbsent(file.toAbsolutePath().normalize(), ExchangeArchive::read);
+    }
+
+    // Recorded exchanges for the path, in the order they were recorded
+    List<Exchange> get(String path) {
+        return exchangesByPath.getOrDefault(path, Collections.emptyList());
+    }
+
+    int size() {
+        return size;
+    }
+
+    static synchronized void append(Path file, Exchange exchange) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            if (fresh) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+            }
+            out.writeUTF(exchange.path);
+            out.writeShort(exchange.statusCode);
+            out.writeLong(exchange.latencyNanos);
+            out.writeShort(exchange.headers.size());
+            for (Map.Entry<String, String> header : exchange.headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(exchange.body.length);
+            out.write(exchange.body);
+        }
+    }
+
+    private static ExchangeArchive read(Path file) {
+        Map<String, List<Exchange>> byPath = new HashMap<>();
+        int count = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an exchange archive: " + file);
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported archive version " + version + " in " + file);
+            }
+            while (true) {
+                String path;
+                try {
+                    path = in.readUTF();
+                } catch (EOFException end) {
+                    break;
+                }
+                int statusCode = in.readUnsignedShort();
+                long latencyNanos = in.readLong();
+                int headerCount = in.readUnsignedShort();
+                Map<String, String> headers = new LinkedHashMap<>();
+                for (int i = 0; i < headerCount; i++) {
+                    headers.put(in.readUTF(), in.readUTF());
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                byPath.computeIfAbsent(path, p -> new ArrayList<>())
+                        .add(new Exchange(path, statusCode, headers, latencyNanos, body));
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load exchange archive " + file, e);
+        }
+        return new ExchangeArchive(byPath, count);
+    }
+}
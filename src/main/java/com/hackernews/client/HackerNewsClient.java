@@ -1,59 +1,269 @@
 package com.hackernews.client;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hackernews.client.jfr.HttpRequestEvent;
+import com.hackernews.client.jfr.JsonDecodeEvent;
+import com.hackernews.client.jfr.RetryAttemptEvent;
 import com.hackernews.model.ApiResponse;
+import com.hackernews.model.CommentNode;
+import com.hackernews.model.CommentTree;
+import com.hackernews.model.DeadlineExceededException;
+import com.hackernews.model.FanOutResult;
 import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.HackerNewsPoll;
+import com.hackernews.model.HackerNewsUser;
+import com.hackernews.model.ItemField;
+import com.hackernews.model.LatencyPhase;
 import com.hackernews.model.RateLimitException;
+import com.hackernews.model.RequestTimeoutException;
+import com.hackernews.model.RequestTimings;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.github.resilience4j.core.IntervalFunction;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
-import io.restassured.RestAssured;
-import io.restassured.response.Response;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
-public class HackerNewsClient {
+public class HackerNewsClient implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(HackerNewsClient.class);
-    private static final String BASE_URL = "https://hacker-news.firebaseio.com/v0";
     private static final String TOP_STORY_URI = "/topstories.json";
-    private static final String REQUEST_ID = "requestId";
+    private static final int MAX_ATTEMPTS = 3;
+    // Guards ancestor walks against parent cycles; real threads are far shallower
+    private static final int MAX_ANCESTOR_DEPTH = 1000;
+    private static final IntervalFunction BACKOFF = IntervalFunction.ofExponentialBackoff(500, 2);
     private final ObjectMapper objectMapper;
+    private final ItemDecoder itemDecoder;
+    private final ObjectReader userReader;
     private final Retry retry;
+    private final RetryBudget retryBudget;
+    private final Transport transport;
+    private final ClientMetrics metrics;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ExecutorService fetchExecutor;
+    private final HedgingPolicy hedgingPolicy;
+    private final HedgingBudget hedgingBudget;
+    private final LatencyTracker itemLatency;
+    private final RequestJournal journal;
+    private final Path journalFile;
+    // Dumps the journal if the JVM exits before close(); null without a journal file
+    private final Thread journalShutdownHook;
+    private long journalDumpedTo;
+    private final Map<Endpoint, CircuitBreaker> circuitBreakers = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Bulkhead> bulkheads = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LatencyTracker> attemptLatency = new EnumMap<>(Endpoint.class);
+    private final TimeoutPolicy timeoutPolicy;
+    private final Cache<Long, HackerNewsItem> itemCache;
+    private final ConcurrentMap<Long, CompletableFuture<ApiResponse<HackerNewsItem>>> inFlightItems =
+            new ConcurrentHashMap<>();
+    private final TtlCache<String, HackerNewsUser> userCache;
+    private final ConcurrentMap<String, CompletableFuture<ApiResponse<HackerNewsUser>>> inFlightUsers =
+            new ConcurrentHashMap<>();
+    private final TtlCache<Long, Boolean> missingItems;
+    // Deleted and dead items, which still have a body (often with kids) and can come back
+    private final TtlCache<Long, HackerNewsItem> goneItems;
+    private final Duration negativeCacheTtl;
+    // Created on the first insert, so short-lived clients never allocate it; stays null when disabled
+    private volatile LongBloomFilter deadItems;
+    private final int deadItemFilterCapacity;
+    private final double deadItemFilterFalsePositiveRate;
+    private final long deadItemFilterIdMargin;
+    private final AtomicLong highestKnownItemId = new AtomicLong();
+    private final StalenessPolicy stalenessPolicy;
+    private final TtlCache<String, List<Long>> listCache;
+    // Keys with a stale-while-revalidate refresh in flight
+    private final Set<Object> revalidating = ConcurrentHashMap.newKeySet();
+    private final String baseUrl;
+    private final StreamPolicy streamPolicy;
+    private final Set<StreamSubscription<?>> subscriptions = ConcurrentHashMap.newKeySet();
+    private HttpClient streamClient;
 
     public HackerNewsClient() {
+        this(HackerNewsClientConfig.defaults());
+    }
+
+    public HackerNewsClient(HackerNewsClientConfig config) {
         this.objectMapper = new ObjectMapper();
+        this.itemDecoder = new ItemDecoder(objectMapper, config.isStreamingDecoder());
+        this.userReader = objectMapper.readerFor(HackerNewsUser.class);
+        this.metrics = new ClientMetrics(config.getLatencyExpectedInterval());
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(config.getInitialConcurrency(),
+                config.getMinConcurrency(), config.getMaxConcurrency(), config.getBackgroundMinShare(), metrics);
+        this.fetchExecutor = Executors.newCachedThreadPool(fetchThreadFactory());
+        this.hedgingPolicy = config.getHedgingPolicy();
+        this.timeoutPolicy = config.getTimeoutPolicy();
+        this.hedgingBudget = hedgingPolicy == null ? null
+                : new HedgingBudget(hedgingPolicy.getMaxExtraLoad(), hedgingPolicy.getBurstHedges());
+        this.itemLatency = new LatencyTracker(1024);
+        this.journal = new RequestJournal(config.getJournalCapacity());
+        this.journalFile = config.getJournalFile();
+        this.journalShutdownHook = journalFile == null ? null : new Thread(this::dumpJournal, "hn-journal-dump");
+        if (journalShutdownHook != null) {
+            Runtime.getRuntime().addShutdownHook(journalShutdownHook);
+        }
+        this.retryBudget = new RetryBudget(config.getRetryBudgetRatio(),
+                config.getRetryBudgetMinPerSecond(), config.getRetryBudgetWindow(), metrics);
         this.retry = createRetryConfig();
-        RestAssured.baseURI = BASE_URL;
+        for (Endpoint endpoint : Endpoint.values()) {
+            circuitBreakers.put(endpoint, createCircuitBreaker(endpoint, config));
+            bulkheads.put(endpoint, createBulkhead(endpoint, config));
+            attemptLatency.put(endpoint, new LatencyTracker(1024));
+        }
+        this.itemCache = config.getOffHeapItemCacheBytes() > 0
+                ? new OffHeapItemCache(config.getItemCacheTtl(), config.getOffHeapItemCacheBytes(), config.getOffHeapSegmentBytes())
+                : new TtlCache<>(config.getItemCacheTtl(), config.getItemCacheMaxSize());
+        this.userCache = new TtlCache<>(config.getUserCacheTtl(), config.getUserCacheMaxSize());
+        this.negativeCacheTtl = config.getNegativeCacheTtl();
+        this.missingItems = new TtlCache<>(negativeCacheTtl, config.getNegativeCacheMaxSize());
+        this.goneItems = new TtlCache<>(negativeCacheTtl, config.getNegativeCacheMaxSize());
+        this.deadItemFilterCapacity = config.getDeadItemFilterCapacity();
+        this.deadItemFilterFalsePositiveRate = config.getDeadItemFilterFalsePositiveRate();
+        this.deadItemFilterIdMargin = config.getDeadItemFilterIdMargin();
+        this.stalenessPolicy = config.getStalenessPolicy();
+        this.listCache = new TtlCache<>(config.getListCacheTtl(), 16);
+        this.transport = createTransport(config);
+        this.baseUrl = config.getBaseUrl();
+        this.streamPolicy = config.getStreamPolicy() == null ? StreamPolicy.defaults() : config.getStreamPolicy();
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public RequestJournal getJournal() {
+        return journal;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    public CircuitBreaker getCircuitBreaker(Endpoint endpoint) {
+        return circuitBreakers.get(endpoint);
+    }
+
+    public Cache<Long, HackerNewsItem> getItemCache() {
+        return itemCache;
+    }
+
+    // Null when the dead item filter is disabled or nothing has been added to it yet
+    public LongBloomFilter getDeadItemFilter() {
+        return deadItems;
+    }
+
+    public TtlCache<String, HackerNewsUser> getUserCache() {
+        return userCache;
+    }
+
+    public Bulkhead getBulkhead(Endpoint endpoint) {
+        return bulkheads.get(endpoint);
+    }
+
+    // Registers a listener for breaker state transitions on every endpoint
+    public void onCircuitBreakerStateTransition(Consumer<CircuitBreakerOnStateTransitionEvent> listener) {
+        for (CircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            circuitBreaker.getEventPublisher().onStateTransition(listener::accept);
+        }
+    }
+
+    private static Transport createTransport(HackerNewsClientConfig config) {
+        switch (config.getArchiveMode()) {
+            case RECORD:
+                logger.info("Recording HTTP exchanges to {}", config.getArchiveFile());
+                return new RecordingTransport(new RestAssuredTransport(config.getBaseUrl()), config.getArchiveFile());
+            case REPLAY:
+                ExchangeArchive archive = ExchangeArchive.load(config.getArchiveFile());
+                logger.info("Replaying {} HTTP exchanges from {}", archive.size(), config.getArchiveFile());
+                return new ReplayTransport(archive, config.isReplayLatency());
+            default:
+                return new RestAssuredTransport(config.getBaseUrl());
+        }
+    }
+
+    private static ThreadFactory fetchThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "hn-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     private Retry createRetryConfig() {
         RetryConfig config = RetryConfig.custom()
-                .maxAttempts(3)
-                .intervalFunction(io.github.resilience4j.core.IntervalFunction
-                        .ofExponentialBackoff(500, 2))
+                .maxAttempts(MAX_ATTEMPTS)
+                .intervalFunction(BACKOFF)
                 .retryOnException(e -> {
                     if (e instanceof RateLimitException) {
                         logger.warn("Rate limit hit, will retry after backoff");
-                        return true;
                     }
-                    return e instanceof RuntimeException &&
-                            !(e instanceof IllegalArgumentException);
+                    return isRetryable(e);
                 })
-                .ignoreExceptions(IllegalArgumentException.class)
+                .ignoreExceptions(IllegalArgumentException.class, CallNotPermittedException.class,
+                        BulkheadFullException.class, RetryBudgetExhaustedException.class,
+                        DeadlineExceededException.class, CancellationException.class)
                 .build();
 
         Retry retry = Retry.of("hackerNewsApi", config);
 
         retry.getEventPublisher()
-                .onRetry(event -> logger.warn("Retry attempt #{} for request. Reason: {}",
-                        event.getNumberOfRetryAttempts(),
-                        event.getLastThrowable().getMessage()))
+                .onRetry(event -> {
+                    logger.warn("Retry attempt #{} for request. Reason: {}",
+                            event.getNumberOfRetryAttempts(),
+                            event.getLastThrowable().getMessage());
+                    if (event.getLastThrowable() instanceof RateLimitException) {
+                        concurrencyLimiter.onRateLimited();
+                    }
+                })
                 .onSuccess(event -> logger.debug("Request succeeded after {} attempts",
                         event.getNumberOfRetryAttempts()))
                 .onError(event -> logger.error("Request failed after {} attempts",
@@ -62,137 +272,1373 @@ public class HackerNewsClient {
         return retry;
     }
 
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof RateLimitException) {
+            return true;
+        }
+        return e instanceof RuntimeException &&
+                !(e instanceof IllegalArgumentException) &&
+                !(e instanceof CallNotPermittedException) &&
+                !(e instanceof BulkheadFullException) &&
+                !(e instanceof RetryBudgetExhaustedException) &&
+                !(e instanceof DeadlineExceededException) &&
+                !(e instanceof CancellationException);
+    }
+
+    private CircuitBreaker createCircuitBreaker(Endpoint endpoint, HackerNewsClientConfig clientConfig) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(clientConfig.getCircuitBreakerFailureRate())
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(clientConfig.getCircuitBreakerWindow())
+                .minimumNumberOfCalls(Math.max(1, clientConfig.getCircuitBreakerWindow() / 2))
+                .waitDurationInOpenState(clientConfig.getCircuitBreakerOpenDuration())
+                .permittedNumberOfCallsInHalfOpenState(3)
+                // 5xx responses come back as unsuccessful ApiResponses rather than exceptions
+                .recordResult(result -> result instanceof ApiResponse
+                        && ((ApiResponse<?>) result).getStatusCode() >= 500)
+                // Throttling, bad input and the caller running out of time say nothing about upstream health
+                .ignoreExceptions(IllegalArgumentException.class, RateLimitException.class,
+                        BulkheadFullException.class, DeadlineExceededException.class,
+                        CancellationException.class)
+                .build();
+
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("hackerNewsApi-" + endpoint.name().toLowerCase(), config);
+
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> {
+                    metrics.recordCircuitBreakerTransition();
+                    logger.warn("Circuit breaker for {} endpoint: {}",
+                            endpoint, event.getStateTransition());
+                })
+                .onCallNotPermitted(event -> {
+                    metrics.recordRejectedCall();
+                    logger.debug("Call to {} endpoint rejected by open circuit breaker", endpoint);
+                });
+
+        return circuitBreaker;
+    }
+
+    private Bulkhead createBulkhead(Endpoint endpoint, HackerNewsClientConfig clientConfig) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(endpoint == Endpoint.LIST
+                        ? clientConfig.getListBulkheadSize() : clientConfig.getItemBulkheadSize())
+                .maxWaitDuration(clientConfig.getBulkheadMaxWait())
+                .build();
+
+        Bulkhead bulkhead = Bulkhead.of("hackerNewsApi-" + endpoint.name().toLowerCase(), config);
+
+        bulkhead.getEventPublisher()
+                .onCallRejected(event -> {
+                    metrics.recordRejectedCall();
+                    logger.warn("Call to {} endpoint rejected, bulkhead is full", endpoint);
+                });
+
+        return bulkhead;
+    }
+
     public ApiResponse<List<Long>> getTopStories(String requestId) {
-        return executeWithRetry(() -> {
-            setupMDC(requestId);
-            logger.info("Fetching top stories with requestId: {}", requestId);
+        return getTopStories(RequestContext.of(requestId));
+    }
 
-            long startTime = System.currentTimeMillis();
-            Response response = RestAssured.given()
-                    .header("X-Request-ID", requestId)
-                    .get(TOP_STORY_URI);
+    /**
+     * Fetches the top stories list. With a {@link StalenessPolicy} the list is served from the
+     * cache while fresh, and an expired copy may be served while revalidating or on failure.
+     */
+    public ApiResponse<List<Long>> getTopStories(RequestContext context) {
+        if (stalenessPolicy == null) {
+            return fetchTopStories(context);
+        }
+        return readThrough(TOP_STORY_URI, listCache, this::fetchTopStories, context);
+    }
 
-            long responseTime = System.currentTimeMillis() - startTime;
+    private ApiResponse<List<Long>> fetchTopStories(RequestContext context) {
+        return executeWithRetry(Endpoint.LIST, 0, (attempt, timer) -> {
+            HttpRequestEvent httpEvent = beginHttpEvent(Endpoint.LIST, 0, attempt);
+            try {
+                return fetchTopStoriesAttempt(attempt, timer, httpEvent);
+            } finally {
+                httpEvent.commit();
+            }
+        }, context);
+    }
 
-            checkRateLimit(response);
+    private ApiResponse<List<Long>> fetchTopStoriesAttempt(RequestContext attempt, PhaseTimer timer,
+                                                           HttpRequestEvent httpEvent) {
+        String requestId = attempt.getRequestId();
+        long startTime = System.currentTimeMillis();
+        TransportResponse response = send(Endpoint.LIST, TOP_STORY_URI, attempt, timer);
 
-            if (response.statusCode() == 200) {
-                List<Long> stories = null;
-                try {
-                    stories = objectMapper.readValue(
-                            response.asString(),
-                            new TypeReference<List<Long>>() {});
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException(e);
-                }
+        long responseTime = System.currentTimeMillis() - startTime;
+        httpEvent.statusCode = response.statusCode();
 
-                logger.info("Successfully fetched {} top stories in {}ms",
-                        stories.size(), responseTime);
+        checkRateLimit(response);
 
-                return ApiResponse.<List<Long>>builder()
-                        .statusCode(response.statusCode())
-                        .body(stories)
-                        .responseTime(responseTime)
-                        .requestId(requestId)
-                        .isSuccess(true)
-                        .build();
-            } else {
-                logger.error("Failed to fetch top stories. Status: {}", response.statusCode());
-                return ApiResponse.<List<Long>>builder()
-                        .statusCode(response.statusCode())
-                        .responseTime(responseTime)
-                        .requestId(requestId)
-                        .isSuccess(false)
-                        .errorMessage(response.asString())
-                        .build();
+        if (response.statusCode() == 200) {
+            List<Long> stories = null;
+            JsonDecodeEvent decodeEvent = beginDecodeEvent(Endpoint.LIST, 0, "List<Long>");
+            long decodeStart = System.nanoTime();
+            try (InputStream body = openBody(response, timer, httpEvent)) {
+                stories = itemDecoder.decodeIds(body);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                timer.recordDecode(System.nanoTime() - decodeStart);
+                decodeEvent.commit();
             }
-        }, requestId);
+
+            return ApiResponse.<List<Long>>builder()
+                    .statusCode(response.statusCode())
+                    .body(stories)
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(true)
+                    .build();
+        } else {
+            logger.error("Failed to fetch top stories. Status: {}", response.statusCode());
+            return ApiResponse.<List<Long>>builder()
+                    .statusCode(response.statusCode())
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(false)
+                    .errorMessage(readBodyAsString(response, timer, httpEvent))
+                    .build();
+        }
     }
 
     public ApiResponse<HackerNewsItem> getItem(Long itemId, String requestId) {
-        return executeWithRetry(() -> {
-            setupMDC(requestId);
-            logger.info("Fetching item {} with requestId: {}", itemId, requestId);
+        return getItem(itemId, RequestContext.of(requestId));
+    }
+
+    /**
+     * Fetches one item. The call takes a permit from the same priority-aware concurrency limit
+     * as bulk fetches, so interactive calls go ahead of queued BACKGROUND work. With a
+     * {@link StalenessPolicy} the item is served from the cache while fresh, and an expired
+     * copy may be served while revalidating or on failure.
+     */
+    public ApiResponse<HackerNewsItem> getItem(Long itemId, RequestContext context) {
+        if (stalenessPolicy == null || itemId == null) {
+            return fetchItemWithinLimit(itemId, ItemField.ALL, context);
+        }
+        return readThrough(itemId, itemCache, ctx -> fetchItemWithinLimit(itemId, ItemField.ALL, ctx), context);
+    }
+
+    /**
+     * Fetches one item decoding only the given fields (and the ID), e.g. ID, score, descendants
+     * and kids for ranking. Large fields left out, such as {@code text}, are skipped by the
+     * parser. Partial items bypass the item cache and are never written to it.
+     */
+    public ApiResponse<HackerNewsItem> getItem(Long itemId, Set<ItemField> fields, RequestContext context) {
+        return fetchItemWithinLimit(itemId, ItemField.projection(fields), context);
+    }
 
-            if (itemId == null || itemId <= 0) {
-                throw new IllegalArgumentException("Invalid item ID: " + itemId);
+    private ApiResponse<HackerNewsItem> fetchItemWithinLimit(Long itemId, Set<ItemField> fields, RequestContext context) {
+        ApiResponse<HackerNewsItem> knownMissing = knownMissing(itemId, fields, context);
+        if (knownMissing != null) {
+            return knownMissing;
+        }
+        Priority priority = context.getPriority();
+        try {
+            if (!acquirePermit(context)) {
+                throw new DeadlineExceededException("Deadline exceeded waiting to fetch item " + itemId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting to fetch item " + itemId);
+        }
+        try {
+            ApiResponse<HackerNewsItem> response = lookupItem(itemId, fields, context);
+            releasePermit(priority, response);
+            return response;
+        } catch (RuntimeException e) {
+            if (e instanceof RateLimitException) {
+                concurrencyLimiter.onRateLimited();
             }
+            concurrencyLimiter.onFailure(priority);
+            throw e;
+        }
+    }
 
-            long startTime = System.currentTimeMillis();
-            Response response = RestAssured.given()
-                    .header("X-Request-ID", requestId)
-                    .get("/item/" + itemId + ".json");
+    private ApiResponse<HackerNewsItem> lookupItem(Long itemId, Set<ItemField> fields, RequestContext context) {
+        if (hedgingPolicy == null || itemId == null || itemId <= 0) {
+            return fetchItem(itemId, fields, context);
+        }
+        return fetchItemHedged(itemId, fields, context);
+    }
 
-            long responseTime = System.currentTimeMillis() - startTime;
+    private ApiResponse<HackerNewsItem> fetchItem(Long itemId, Set<ItemField> fields, RequestContext context) {
+        long startNanos = System.nanoTime();
+        ApiResponse<HackerNewsItem> response = fetchItemWithRetry(itemId, fields, context);
+        itemLatency.record(System.nanoTime() - startNanos);
+        rememberIfMissing(itemId, fields, response);
+        return response;
+    }
 
-            checkRateLimit(response);
+    /**
+     * Answers lookups of IDs recently found null, or known to be gone for good, without a
+     * request. Deleted and dead items recently fetched in full are served from their cached
+     * body, as the original fetch was, so callers can still walk through them.
+     */
+    private ApiResponse<HackerNewsItem> knownMissing(Long itemId, Set<ItemField> fields, RequestContext context) {
+        if (itemId == null || itemId <= 0) {
+            return null;
+        }
+        HackerNewsItem gone = ItemField.ALL.equals(fields) ? goneItems.get(itemId) : null;
+        if (gone != null) {
+            metrics.recordKnownMissingHit();
+            return ApiResponse.<HackerNewsItem>builder()
+                    .statusCode(200)
+                    .requestId(context.getRequestId())
+                    .body(gone)
+                    .isSuccess(true)
+                    .build();
+        }
+        LongBloomFilter filter = deadItems;
+        boolean dead = filter != null && filter.mightContain(itemId);
+        if (!dead && missingItems.get(itemId) == null) {
+            return null;
+        }
+        metrics.recordKnownMissingHit();
+        return ApiResponse.<HackerNewsItem>builder()
+                .statusCode(200)
+                .requestId(context.getRequestId())
+                .isSuccess(false)
+                .errorMessage(dead ? "Item not found (known from an earlier fetch)"
+                        : "Item not found or deleted (cached)")
+                .build();
+    }
 
-            if (response.statusCode() == 200) {
-                String responseBody = response.asString();
+    /**
+     * Item IDs are allocated in order, but new items do not always become readable in order,
+     * so only a null well below an ID known to exist goes into the dead item filter; any other
+     * null is kept for the negative cache TTL. Deleted and dead items are not gone for good (a
+     * dead item can be vouched for), so their bodies are kept for the TTL too, and only when
+     * fetched in full.
+     */
+    private void rememberIfMissing(Long itemId, Set<ItemField> fields, ApiResponse<HackerNewsItem> response) {
+        if (itemId == null || itemId <= 0 || response.getStatusCode() != 200) {
+            return;
+        }
+        HackerNewsItem item = response.getBody();
+        if (item != null) {
+            highestKnownItemId.accumulateAndGet(itemId, Math::max);
+            if (!negativeCacheTtl.isZero() && ItemField.ALL.equals(fields)
+                    && (Boolean.TRUE.equals(item.getDeleted()) || Boolean.TRUE.equals(item.getDead()))) {
+                goneItems.put(itemId, item);
+            }
+        } else if (deadItemFilterCapacity > 0 && itemId < highestKnownItemId.get() - deadItemFilterIdMargin) {
+            deadItemFilter().add(itemId);
+        } else if (!negativeCacheTtl.isZero()) {
+            missingItems.put(itemId, Boolean.TRUE);
+        }
+    }
 
-                if (responseBody == null || responseBody.trim().equals("null")) {
-                    logger.warn("Item {} not found or deleted", itemId);
-                    return ApiResponse.<HackerNewsItem>builder()
-                            .statusCode(response.statusCode())
-                            .responseTime(responseTime)
-                            .requestId(requestId)
-                            .isSuccess(false)
-                            .errorMessage("Item not found or deleted")
-                            .build();
+    private LongBloomFilter deadItemFilter() {
+        LongBloomFilter filter = deadItems;
+        if (filter == null) {
+            synchronized (this) {
+                filter = deadItems;
+                if (filter == null) {
+                    filter = new LongBloomFilter(deadItemFilterCapacity, deadItemFilterFalsePositiveRate);
+                    deadItems = filter;
                 }
+            }
+        }
+        return filter;
+    }
 
-                HackerNewsItem item = null;
-                try {
-                    item = objectMapper.readValue(responseBody, HackerNewsItem.class);
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException(e);
+    /**
+     * Sends the request on the fetch executor and, if it is still outstanding after the
+     * policy's latency percentile, sends a duplicate. The first successful response wins;
+     * the slower request is left to finish in the background.
+     */
+    private ApiResponse<HackerNewsItem> fetchItemHedged(Long itemId, Set<ItemField> fields, RequestContext context) {
+        hedgingBudget.onRequest();
+        CompletableFuture<ApiResponse<HackerNewsItem>> primary =
+                CompletableFuture.supplyAsync(() -> fetchItem(itemId, fields, context), fetchExecutor);
+        try {
+            return primary.get(hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!hedgingBudget.tryAcquire()) {
+                metrics.recordHedgeDenied();
+                return join(primary);
+            }
+            metrics.recordHedgeSent();
+            logger.debug("Hedging request for item {} after {}ms", itemId, hedgeDelayNanos() / 1_000_000);
+            CompletableFuture<ApiResponse<HackerNewsItem>> hedge =
+                    CompletableFuture.supplyAsync(() -> fetchItem(itemId, fields, context), fetchExecutor);
+            return join(firstSuccessful(primary, hedge));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching item " + itemId, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        long minDelayNanos = hedgingPolicy.getMinDelay().toNanos();
+        if (itemLatency.size() < hedgingPolicy.getMinSamples()) {
+            return minDelayNanos;
+        }
+        return Math.max(minDelayNanos, itemLatency.percentileNanos(hedgingPolicy.getLatencyPercentile()));
+    }
+
+    private CompletableFuture<ApiResponse<HackerNewsItem>> firstSuccessful(
+            CompletableFuture<ApiResponse<HackerNewsItem>> primary,
+            CompletableFuture<ApiResponse<HackerNewsItem>> hedge) {
+        CompletableFuture<ApiResponse<HackerNewsItem>> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        primary.whenComplete((response, error) -> {
+            if (error == null && response.isSuccess()) {
+                winner.complete(response);
+            } else if (remaining.decrementAndGet() == 0) {
+                // Neither succeeded; report the primary's outcome as an unhedged call would
+                primary.whenComplete((r, t) -> completeWith(winner, r, t));
+            }
+        });
+        hedge.whenComplete((response, error) -> {
+            if (error == null && response.isSuccess()) {
+                if (winner.complete(response)) {
+                    metrics.recordHedgeWon();
                 }
-                logger.info("Successfully fetched item {} (type: {}) in {}ms",
-                        itemId, item.getType(), responseTime);
+            } else if (remaining.decrementAndGet() == 0) {
+                primary.whenComplete((r, t) -> completeWith(winner, r, t));
+            }
+        });
+        return winner;
+    }
+
+    private static <T> void completeWith(CompletableFuture<T> future, T value, Throwable error) {
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(value);
+        }
+    }
 
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new RuntimeException(cause);
+    }
+
+    private ApiResponse<HackerNewsItem> fetchItemWithRetry(Long itemId, Set<ItemField> fields, RequestContext context) {
+        long id = itemId == null ? 0 : itemId;
+        return executeWithRetry(Endpoint.ITEM, id, (attempt, timer) -> {
+            HttpRequestEvent httpEvent = beginHttpEvent(Endpoint.ITEM, id, attempt);
+            try {
+                return fetchItemAttempt(itemId, fields, attempt, timer, httpEvent);
+            } finally {
+                httpEvent.commit();
+            }
+        }, context);
+    }
+
+    private ApiResponse<HackerNewsItem> fetchItemAttempt(Long itemId, Set<ItemField> fields, RequestContext attempt, PhaseTimer timer,
+                                                         HttpRequestEvent httpEvent) {
+        String requestId = attempt.getRequestId();
+        if (itemId == null || itemId <= 0) {
+            throw new IllegalArgumentException("Invalid item ID: " + itemId);
+        }
+
+        long startTime = System.currentTimeMillis();
+        TransportResponse response = send(Endpoint.ITEM, "/item/" + itemId + ".json", attempt, timer);
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        httpEvent.statusCode = response.statusCode();
+
+        checkRateLimit(response);
+
+        if (response.statusCode() == 200) {
+            HackerNewsItem item = null;
+            JsonDecodeEvent decodeEvent = beginDecodeEvent(Endpoint.ITEM, itemId, "HackerNewsItem");
+            long decodeStart = System.nanoTime();
+            try (InputStream body = openBody(response, timer, httpEvent)) {
+                item = itemDecoder.decodeItem(body, fields);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                timer.recordDecode(System.nanoTime() - decodeStart);
+                decodeEvent.commit();
+            }
+
+            // A literal "null" body decodes to null
+            if (item == null) {
+                logger.warn("Item {} not found or deleted", itemId);
                 return ApiResponse.<HackerNewsItem>builder()
                         .statusCode(response.statusCode())
-                        .body(item)
                         .responseTime(responseTime)
                         .requestId(requestId)
-                        .isSuccess(true)
+                        .isSuccess(false)
+                        .errorMessage("Item not found or deleted")
                         .build();
-            } else {
-                logger.error("Failed to fetch item {}. Status: {}", itemId, response.statusCode());
-                return ApiResponse.<HackerNewsItem>builder()
+            }
+
+            return ApiResponse.<HackerNewsItem>builder()
+                    .statusCode(response.statusCode())
+                    .body(item)
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(true)
+                    .build();
+        } else {
+            logger.error("Failed to fetch item {}. Status: {}", itemId, response.statusCode());
+            return ApiResponse.<HackerNewsItem>builder()
+                    .statusCode(response.statusCode())
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(false)
+                    .errorMessage(readBodyAsString(response, timer, httpEvent))
+                    .build();
+        }
+    }
+
+    /**
+     * Fetches one user profile. Prefer {@link #getUsers} when hydrating many authors, which
+     * deduplicates them and serves repeat lookups from the user cache.
+     */
+    public ApiResponse<HackerNewsUser> getUser(String userId, RequestContext context) {
+        return executeWithRetry(Endpoint.USER, 0, (attempt, timer) -> {
+            HttpRequestEvent httpEvent = beginHttpEvent(Endpoint.USER, 0, attempt);
+            try {
+                return fetchUserAttempt(userId, attempt, timer, httpEvent);
+            } finally {
+                httpEvent.commit();
+            }
+        }, context);
+    }
+
+    private ApiResponse<HackerNewsUser> fetchUserAttempt(String userId, RequestContext attempt, PhaseTimer timer,
+                                                         HttpRequestEvent httpEvent) {
+        String requestId = attempt.getRequestId();
+        if (userId == null || userId.isBlank()) {
+            throw new IllegalArgumentException("Invalid user ID: " + userId);
+        }
+
+        long startTime = System.currentTimeMillis();
+        TransportResponse response = send(Endpoint.USER,
+                "/user/" + URLEncoder.encode(userId, StandardCharsets.UTF_8) + ".json", attempt, timer);
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        httpEvent.statusCode = response.statusCode();
+
+        checkRateLimit(response);
+
+        if (response.statusCode() == 200) {
+            HackerNewsUser user = null;
+            JsonDecodeEvent decodeEvent = beginDecodeEvent(Endpoint.USER, 0, "HackerNewsUser");
+            long decodeStart = System.nanoTime();
+            try (InputStream body = openBody(response, timer, httpEvent)) {
+                user = userReader.readValue(body);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                timer.recordDecode(System.nanoTime() - decodeStart);
+                decodeEvent.commit();
+            }
+
+            if (user == null) {
+                logger.warn("User {} not found", userId);
+                return ApiResponse.<HackerNewsUser>builder()
                         .statusCode(response.statusCode())
                         .responseTime(responseTime)
                         .requestId(requestId)
                         .isSuccess(false)
-                        .errorMessage(response.asString())
+                        .errorMessage("User not found")
                         .build();
             }
-        }, requestId);
+
+            return ApiResponse.<HackerNewsUser>builder()
+                    .statusCode(response.statusCode())
+                    .body(user)
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(true)
+                    .build();
+        } else {
+            logger.error("Failed to fetch user {}. Status: {}", userId, response.statusCode());
+            return ApiResponse.<HackerNewsUser>builder()
+                    .statusCode(response.statusCode())
+                    .responseTime(responseTime)
+                    .requestId(requestId)
+                    .isSuccess(false)
+                    .errorMessage(readBodyAsString(response, timer, httpEvent))
+                    .build();
+        }
     }
 
-    private <T> T executeWithRetry(Supplier<T> supplier, String requestId) {
-        Supplier<T> decoratedSupplier = Retry.decorateSupplier(retry, supplier);
+    /**
+     * Fetches each distinct user once, concurrently under the adaptive concurrency limit, and
+     * serves users fetched within {@code userCacheTtl} from the cache. The map is keyed by user
+     * ID in the order the IDs were first seen; null IDs are skipped.
+     */
+    public Map<String, ApiResponse<HackerNewsUser>> getUsers(Collection<String> userIds, RequestContext context) {
+        Map<String, CompletableFuture<ApiResponse<HackerNewsUser>>> futures = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            if (userId != null && !futures.containsKey(userId)) {
+                futures.put(userId, cachedFetch(userId, userCache, inFlightUsers,
+                        () -> submitWithinLimit("user " + userId, () -> getUser(userId, context), context), context));
+            }
+        }
+        Map<String, ApiResponse<HackerNewsUser>> users = new LinkedHashMap<>();
+        futures.forEach((userId, future) -> users.put(userId, future.join()));
+        return users;
+    }
+
+    // Hydrates the authors of the given items, e.g. every comment of a thread
+    public Map<String, ApiResponse<HackerNewsUser>> getAuthors(Collection<HackerNewsItem> items, RequestContext context) {
+        List<String> authors = new ArrayList<>(items.size());
+        for (HackerNewsItem item : items) {
+            authors.add(item.getBy());
+        }
+        return getUsers(authors, context);
+    }
+
+    /**
+     * Fetches many items concurrently. The number of requests in flight is governed by the
+     * client's {@link AdaptiveConcurrencyLimiter}; results are returned in the order of
+     * {@code itemIds}, with failures reported as unsuccessful responses rather than thrown.
+     */
+    public List<ApiResponse<HackerNewsItem>> getItems(List<Long> itemIds, String requestId) {
+        return getItems(itemIds, RequestContext.of(requestId));
+    }
+
+    public List<ApiResponse<HackerNewsItem>> getItems(List<Long> itemIds, RequestContext context) {
+        return getItems(itemIds, ItemField.ALL, context);
+    }
+
+    /**
+     * Like {@link #getItems(List, RequestContext)}, decoding only the given fields (and the ID).
+     * Partial items bypass the item cache and are never written to it.
+     */
+    public List<ApiResponse<HackerNewsItem>> getItems(List<Long> itemIds, Set<ItemField> fields, RequestContext context) {
+        Set<ItemField> projection = ItemField.projection(fields);
+        List<CompletableFuture<ApiResponse<HackerNewsItem>>> futures = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            futures.add(submitItemFetch(itemId, projection, context));
+        }
+        List<ApiResponse<HackerNewsItem>> responses = new ArrayList<>(futures.size());
+        for (CompletableFuture<ApiResponse<HackerNewsItem>> future : futures) {
+            responses.add(future.join());
+        }
+        return responses;
+    }
+
+    /**
+     * Cache-first read for clients with a staleness policy. A fresh entry is returned as is. An
+     * entry expired within {@code staleWhileRevalidate} is returned marked stale while a single
+     * BACKGROUND refresh per key runs. Anything older is fetched; if that fails, is rate limited
+     * or throws, an entry expired within {@code staleIfError} is served instead of the failure.
+     */
+    private <K, V> ApiResponse<V> readThrough(K key, Cache<K, V> cache,
+                                              Function<RequestContext, ApiResponse<V>> fetch, RequestContext context) {
+        Cache.Lookup<V> cached = cache.lookup(key);
+        if (cached != null && !cached.isExpired()) {
+            return cachedResponse(cached, context, null);
+        }
+        if (cached != null && cached.getExpiredNanos() <= stalenessPolicy.getStaleWhileRevalidate().toNanos()) {
+            revalidate(key, cache, fetch, context);
+            metrics.recordStaleServed(true);
+            return cachedResponse(cached, context, null);
+        }
+        boolean canServeStale = cached != null
+                && cached.getExpiredNanos() <= stalenessPolicy.getStaleIfError().toNanos();
+        ApiResponse<V> response;
         try {
-            return decoratedSupplier.get();
+            response = fetch.apply(context);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (!canServeStale) {
+                throw e;
+            }
+            return staleOnError(key, cached, context, e.getMessage());
+        }
+        if (response.isSuccess()) {
+            if (response.getBody() != null) {
+                cache.put(key, response.getBody());
+            }
+            return response;
+        }
+        boolean upstreamFailure = response.getStatusCode() == 0 || response.getStatusCode() == 429
+                || response.getStatusCode() >= 500;
+        if (canServeStale && upstreamFailure) {
+            return staleOnError(key, cached, context, response.getErrorMessage());
+        }
+        return response;
+    }
+
+    private <K, V> void revalidate(K key, Cache<K, V> cache, Function<RequestContext, ApiResponse<V>> fetch,
+                                   RequestContext context) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        RequestContext background = RequestContext.of(context.getRequestId()).withPriority(Priority.BACKGROUND);
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    ApiResponse<V> response = fetch.apply(background);
+                    if (response.isSuccess() && response.getBody() != null) {
+                        cache.put(key, response.getBody());
+                    }
+                } catch (RuntimeException e) {
+                    logger.debug("Background refresh of {} failed: {}", key, e.getMessage());
+                } finally {
+                    revalidating.remove(key);
+                }
+            }, fetchExecutor);
+        } catch (RejectedExecutionException e) {
+            revalidating.remove(key);
+        }
+    }
+
+    private <K, V> ApiResponse<V> staleOnError(K key, Cache.Lookup<V> cached, RequestContext context, String error) {
+        logger.warn("Serving {} from cache, {}ms old, after fetch failed: {}, RequestId: {}",
+                key, cached.getAgeMillis(), error, context.getRequestId());
+        metrics.recordStaleServed(false);
+        return cachedResponse(cached, context, "Served stale after fetch failed: " + error);
+    }
+
+    private static <V> ApiResponse<V> cachedResponse(Cache.Lookup<V> cached, RequestContext context, String errorMessage) {
+        return ApiResponse.<V>builder()
+                .statusCode(200)
+                .body(cached.getValue())
+                .requestId(context.getRequestId())
+                .isSuccess(true)
+                .errorMessage(errorMessage)
+                .ageMillis(cached.getAgeMillis())
+                .stale(cached.isExpired())
+                .build();
+    }
+
+    CompletableFuture<ApiResponse<HackerNewsItem>> submitItemFetch(Long itemId, RequestContext context) {
+        return submitItemFetch(itemId, ItemField.ALL, context);
+    }
+
+    private CompletableFuture<ApiResponse<HackerNewsItem>> submitItemFetch(Long itemId, Set<ItemField> fields,
+                                                                          RequestContext context) {
+        ApiResponse<HackerNewsItem> knownMissing = knownMissing(itemId, fields, context);
+        if (knownMissing != null) {
+            return CompletableFuture.completedFuture(knownMissing);
+        }
+        return submitWithinLimit("item " + itemId, () -> lookupItem(itemId, fields, context), context);
+    }
+
+    // Takes a concurrency permit on the calling thread, then runs the fetch on the fetch executor
+    private <T> CompletableFuture<ApiResponse<T>> submitWithinLimit(String target, Supplier<ApiResponse<T>> fetch,
+                                                                    RequestContext context) {
+        String requestId = context.getRequestId();
+        long submittedNanos = System.nanoTime();
+        try {
+            if (!acquirePermit(context)) {
+                return CompletableFuture.completedFuture(failedResponse(requestId, 0, "Deadline exceeded before fetching " + target));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(failedResponse(requestId, 0, "Interrupted before fetching " + target));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> fetchWithinLimit(fetch, context, submittedNanos), fetchExecutor);
+        } catch (RejectedExecutionException e) {
+            concurrencyLimiter.onFailure(context.getPriority());
+            return CompletableFuture.completedFuture(failedResponse(requestId, 0, "Client is closed"));
+        }
+    }
+
+    // Waits for a concurrency permit, but no longer than the context's deadline
+    private boolean acquirePermit(RequestContext context) throws InterruptedException {
+        if (!context.hasDeadline()) {
+            concurrencyLimiter.acquire(context.getPriority());
+            return true;
+        }
+        return concurrencyLimiter.tryAcquire(context.getPriority(), context.remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Fetches items until {@code count} of them have succeeded and abandons the rest: fetches
+     * not yet sent are skipped, and those in flight stop before their next attempt. Also returns
+     * as soon as {@code count} successes have become impossible, or at the context's deadline.
+     */
+    public FanOutResult<HackerNewsItem> getFirstItems(List<Long> itemIds, int count, RequestContext context) {
+        return fanOut(itemIds, Math.min(count, itemIds.size()), context);
+    }
+
+    // Like getFirstItems, with the required successes given as a fraction of itemIds
+    public FanOutResult<HackerNewsItem> getItemsWithQuorum(List<Long> itemIds, double successRatio,
+                                                           RequestContext context) {
+        if (successRatio <= 0 || successRatio > 1) {
+            throw new IllegalArgumentException("Success ratio must be in (0, 1]: " + successRatio);
+        }
+        return fanOut(itemIds, (int) Math.ceil(successRatio * itemIds.size()), context);
+    }
+
+    private FanOutResult<HackerNewsItem> fanOut(List<Long> itemIds, int required, RequestContext context) {
+        long startNanos = System.nanoTime();
+        QuorumCollector<HackerNewsItem> collector = new QuorumCollector<>(itemIds.size(), required);
+        RequestContext fanOutContext = context.withCancellation(collector::isDone);
+        try {
+            for (int i = 0; i < itemIds.size() && !collector.isDone(); i++) {
+                int index = i;
+                Long itemId = itemIds.get(i);
+                ApiResponse<HackerNewsItem> knownMissing = knownMissing(itemId, ItemField.ALL, fanOutContext);
+                if (knownMissing != null) {
+                    collector.offer(index, knownMissing);
+                    continue;
+                }
+                if (!acquirePermit(fanOutContext)) {
+                    break;
+                }
+                if (collector.isDone()) {
+                    concurrencyLimiter.onFailure(fanOutContext.getPriority());
+                    break;
+                }
+                long submittedNanos = System.nanoTime();
+                try {
+                    fetchExecutor.execute(() ->
+                            collector.offer(index, fetchWithinLimit(() -> lookupItem(itemId, ItemField.ALL, fanOutContext), fanOutContext, submittedNanos)));
+                } catch (RejectedExecutionException e) {
+                    concurrencyLimiter.onFailure(fanOutContext.getPriority());
+                    break;
+                }
+            }
+            collector.await(context.remainingNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Once awaited the collector accepts no more responses, so these counts are final
+        int cancelled = itemIds.size() - collector.completed();
+        if (cancelled > 0) {
+            logger.debug("Fan-out finished with {} of {} successes, abandoned {} fetches",
+                    collector.successes().size(), required, cancelled);
+        }
+        return FanOutResult.<HackerNewsItem>builder()
+                .successes(collector.successes())
+                .failures(collector.failures())
+                .cancelled(cancelled)
+                .requiredSuccesses(required)
+                .quorumReached(collector.quorumReached())
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .build();
+    }
+
+    public ApiResponse<List<HackerNewsItem>> getAncestors(Long itemId, RequestContext context) {
+        return getAncestors(List.of(itemId), context).get(0);
+    }
+
+    /**
+     * Resolves the chain of parent links of each item, from the item itself up to its root
+     * story or poll. All chains are walked together one level at a time, so an ancestor shared
+     * by several items is fetched once per level, and every link goes through the item cache,
+     * so later calls reuse what earlier ones fetched. A chain that cannot be completed comes
+     * back unsuccessful with the links resolved so far as its body.
+     */
+    public List<ApiResponse<List<HackerNewsItem>>> getAncestors(List<Long> itemIds, RequestContext context) {
+        long startNanos = System.nanoTime();
+        int size = itemIds.size();
+        List<List<HackerNewsItem>> chains = new ArrayList<>(size);
+        Long[] next = new Long[size];
+        String[] errors = new String[size];
+        for (int i = 0; i < size; i++) {
+            chains.add(new ArrayList<>());
+            next[i] = itemIds.get(i);
+        }
+
+        while (true) {
+            Map<Long, CompletableFuture<ApiResponse<HackerNewsItem>>> level = new HashMap<>();
+            for (Long id : next) {
+                if (id != null && !level.containsKey(id)) {
+                    level.put(id, cachedItemFetch(id, context));
+                }
+            }
+            if (level.isEmpty()) {
+                break;
+            }
+            for (int i = 0; i < size; i++) {
+                if (next[i] == null) {
+                    continue;
+                }
+                ApiResponse<HackerNewsItem> response = level.get(next[i]).join();
+                HackerNewsItem item = response.getBody();
+                if (!response.isSuccess() || item == null) {
+                    errors[i] = response.isSuccess() ? "Item " + next[i] + " not found or deleted" : response.getErrorMessage();
+                    next[i] = null;
+                    continue;
+                }
+                chains.get(i).add(item);
+                next[i] = item.getParent();
+                if (next[i] != null && chains.get(i).size() >= MAX_ANCESTOR_DEPTH) {
+                    errors[i] = "Parent chain of item " + itemIds.get(i) + " exceeds " + MAX_ANCESTOR_DEPTH + " levels";
+                    next[i] = null;
+                }
+            }
+        }
+
+        long responseTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        List<ApiResponse<List<HackerNewsItem>>> responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            responses.add(ApiResponse.<List<HackerNewsItem>>builder()
+                    .statusCode(errors[i] == null ? 200 : 0)
+                    .body(chains.get(i))
+                    .responseTime(responseTime)
+                    .requestId(context.getRequestId())
+                    .isSuccess(errors[i] == null)
+                    .errorMessage(errors[i])
+                    .build());
+        }
+        return responses;
+    }
+
+    /**
+     * Fetches a poll and all of its pollopt parts, the parts concurrently. Both go through the
+     * item cache, so options another caller has already fetched are not fetched again. The
+     * response is unsuccessful if any option could not be fetched; the body then holds the rest.
+     */
+    public ApiResponse<HackerNewsPoll> getPoll(Long pollId, RequestContext context) {
+        long startNanos = System.nanoTime();
+        ApiResponse<HackerNewsItem> pollResponse = cachedItemFetch(pollId, context).join();
+        HackerNewsItem poll = pollResponse.getBody();
+        if (!pollResponse.isSuccess() || poll == null) {
+            return failedResponse(context.getRequestId(), pollResponse.getStatusCode(),
+                    pollResponse.isSuccess() ? "Poll " + pollId + " not found or deleted" : pollResponse.getErrorMessage());
+        }
+        if (!"poll".equals(poll.getType())) {
+            return failedResponse(context.getRequestId(), pollResponse.getStatusCode(),
+                    "Item " + pollId + " is a " + poll.getType() + ", not a poll");
+        }
+        return pollResponse(poll, fetchPollOptions(poll, context, true), startNanos, context);
+    }
+
+    // Re-reads only the option items, past the cache since their scores change, and caches the new values
+    public ApiResponse<HackerNewsPoll> refreshPoll(HackerNewsPoll poll, RequestContext context) {
+        long startNanos = System.nanoTime();
+        return pollResponse(poll.getPoll(), fetchPollOptions(poll.getPoll(), context, false), startNanos, context);
+    }
+
+    private List<ApiResponse<HackerNewsItem>> fetchPollOptions(HackerNewsItem poll, RequestContext context,
+                                                               boolean fromCache) {
+        List<Long> parts = poll.getParts() == null ? List.of() : poll.getParts();
+        List<CompletableFuture<ApiResponse<HackerNewsItem>>> futures = new ArrayList<>(parts.size());
+        for (Long partId : parts) {
+            futures.add(fromCache ? cachedItemFetch(partId, context) : refreshedItemFetch(partId, context));
+        }
+        List<ApiResponse<HackerNewsItem>> responses = new ArrayList<>(futures.size());
+        for (CompletableFuture<ApiResponse<HackerNewsItem>> future : futures) {
+            responses.add(future.join());
+        }
+        return responses;
+    }
+
+    private ApiResponse<HackerNewsPoll> pollResponse(HackerNewsItem poll, List<ApiResponse<HackerNewsItem>> optionResponses,
+                                                     long startNanos, RequestContext context) {
+        List<HackerNewsItem> options = new ArrayList<>(optionResponses.size());
+        for (ApiResponse<HackerNewsItem> response : optionResponses) {
+            if (response.isSuccess() && response.getBody() != null) {
+                options.add(response.getBody());
+            }
+        }
+        int missing = optionResponses.size() - options.size();
+        return ApiResponse.<HackerNewsPoll>builder()
+                .statusCode(missing == 0 ? 200 : 0)
+                .body(HackerNewsPoll.builder()
+                        .poll(poll)
+                        .options(options)
+                        .scoresReadAt(System.currentTimeMillis())
+                        .build())
+                .responseTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .requestId(context.getRequestId())
+                .isSuccess(missing == 0)
+                .errorMessage(missing == 0 ? null : missing + " of " + optionResponses.size() + " poll options could not be fetched")
+                .build();
+    }
+
+    private CompletableFuture<ApiResponse<HackerNewsItem>> refreshedItemFetch(Long itemId, RequestContext context) {
+        return submitItemFetch(itemId, context).thenApply(response -> {
+            if (response.isSuccess() && response.getBody() != null) {
+                itemCache.put(itemId, response.getBody());
+            }
+            return response;
+        });
+    }
+
+    // Serves an item from the cache, or fetches it once for all concurrent callers that miss on it
+    CompletableFuture<ApiResponse<HackerNewsItem>> cachedItemFetch(Long itemId, RequestContext context) {
+        return cachedFetch(itemId, itemCache, inFlightItems, () -> submitItemFetch(itemId, context), context);
+    }
+
+    private <K, V> CompletableFuture<ApiResponse<V>> cachedFetch(K key, Cache<K, V> cache,
+                                                                 ConcurrentMap<K, CompletableFuture<ApiResponse<V>>> inFlight,
+                                                                 Supplier<CompletableFuture<ApiResponse<V>>> fetch,
+                                                                 RequestContext context) {
+        V cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(ApiResponse.<V>builder()
+                    .statusCode(200)
+                    .body(cached)
+                    .requestId(context.getRequestId())
+                    .isSuccess(true)
+                    .build());
+        }
+        CompletableFuture<ApiResponse<V>> shared = new CompletableFuture<>();
+        CompletableFuture<ApiResponse<V>> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing;
+        }
+        fetch.get().whenComplete((response, error) -> {
+            if (response != null && response.isSuccess() && response.getBody() != null) {
+                cache.put(key, response.getBody());
+            }
+            inFlight.remove(key, shared);
+            completeWith(shared, response, error);
+        });
+        return shared;
+    }
+
+    /**
+     * Fetches the top of a comment thread within a request budget: level by level, only the
+     * first {@code kidsPerLevel} kids of each item in HN's displayed order, down to
+     * {@code maxDepth} and at most {@code maxItems} comments, each level in parallel. Kids
+     * that are left out are listed on their parent's node; passing one as {@code rootId}
+     * loads that subtree later.
+     */
+    public CommentTree getCommentTree(Long rootId, CommentTreePolicy policy, RequestContext context) {
+        long startNanos = System.nanoTime();
+        ApiResponse<HackerNewsItem> rootResponse = getItem(rootId, context);
+        if (!rootResponse.isSuccess() || rootResponse.getBody() == null) {
+            return CommentTree.builder()
+                    .failedFetches(rootResponse.isSuccess() ? 0 : 1)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                    .build();
+        }
+
+        CommentNode root = new CommentNode(rootResponse.getBody(), 0);
+        int requested = 0;
+        int fetched = 0;
+        int failed = 0;
+        int gone = 0;
+        int unexpanded = 0;
+        List<CommentNode> level = List.of(root);
+        while (!level.isEmpty()) {
+            // Parents are visited in display order, so the budget goes to the highest-ranked kids
+            List<CommentNode> parents = new ArrayList<>();
+            List<Long> kidIds = new ArrayList<>();
+            for (CommentNode node : level) {
+                List<Long> kids = node.getItem().getKids();
+                if (kids == null) {
+                    continue;
+                }
+                int expandable = node.getDepth() < policy.getMaxDepth() ? policy.getKidsPerLevel() : 0;
+                for (int i = 0; i < kids.size(); i++) {
+                    if (i < expandable && requested < policy.getMaxItems()) {
+                        parents.add(node);
+                        kidIds.add(kids.get(i));
+                        requested++;
+                    } else {
+                        node.getUnexpandedKids().add(kids.get(i));
+                        unexpanded++;
+                    }
+                }
+            }
+            if (kidIds.isEmpty()) {
+                break;
+            }
+
+            List<ApiResponse<HackerNewsItem>> responses = getItems(kidIds, context);
+            List<CommentNode> nextLevel = new ArrayList<>(kidIds.size());
+            for (int i = 0; i < kidIds.size(); i++) {
+                ApiResponse<HackerNewsItem> response = responses.get(i);
+                CommentNode parent = parents.get(i);
+                if (!response.isSuccess() && response.getStatusCode() == 200) {
+                    // The API answered with no item, so loading the subtree later cannot succeed either
+                    gone++;
+                } else if (!response.isSuccess()) {
+                    parent.getUnexpandedKids().add(kidIds.get(i));
+                    unexpanded++;
+                    failed++;
+                } else if (response.getBody() != null) {
+                    CommentNode child = new CommentNode(response.getBody(), parent.getDepth() + 1);
+                    parent.getChildren().add(child);
+                    nextLevel.add(child);
+                    fetched++;
+                }
+            }
+            level = nextLevel;
+        }
+
+        logger.debug("Comment tree for {}: fetched {} comments, left {} subtrees unexpanded, {} fetches failed, {} kids gone",
+                rootId, fetched, unexpanded, failed, gone);
+        return CommentTree.builder()
+                .root(root)
+                .fetchedComments(fetched)
+                .unexpandedSubtrees(unexpanded)
+                .failedFetches(failed)
+                .goneKids(gone)
+                .truncated(unexpanded > 0)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .build();
+    }
+
+    private <T> ApiResponse<T> fetchWithinLimit(Supplier<ApiResponse<T>> fetch, RequestContext context, long submittedNanos) {
+        String requestId = context.getRequestId();
+        Priority priority = context.getPriority();
+        long startNanos = System.nanoTime();
+        try {
+            ApiResponse<T> response = fetch.get();
+            releasePermit(priority, response);
+            if (response.getTimings() != null) {
+                response.setTimings(response.getTimings().plus(LatencyPhase.QUEUE, startNanos - submittedNanos));
+            }
+            return response;
+        } catch (RateLimitException e) {
+            concurrencyLimiter.onRateLimited();
+            concurrencyLimiter.onFailure(priority);
+            return failedResponse(requestId, 429, e.getMessage());
+        } catch (RuntimeException e) {
+            concurrencyLimiter.onFailure(priority);
+            return failedResponse(requestId, 0, e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds the limiter only the time spent on the wire: retry backoff and queueing would shrink
+     * the limit for reasons unrelated to server load. Responses that failed, or that never went
+     * over the network, release their permit without a latency sample.
+     */
+    private void releasePermit(Priority priority, ApiResponse<?> response) {
+        RequestTimings timings = response.getTimings();
+        if (!response.isSuccess() || timings == null) {
+            concurrencyLimiter.onFailure(priority);
+            return;
+        }
+        concurrencyLimiter.onSuccess(priority, timings.getNanos(LatencyPhase.CONNECT)
+                + timings.getNanos(LatencyPhase.TIME_TO_FIRST_BYTE) + timings.getNanos(LatencyPhase.BODY_READ));
+    }
+
+    private <T> ApiResponse<T> failedResponse(String requestId, int statusCode, String errorMessage) {
+        return ApiResponse.<T>builder()
+                .statusCode(statusCode)
+                .requestId(requestId)
+                .isSuccess(false)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    /**
+     * Streams the top stories list, calling {@code listener} with the whole list on connect and
+     * after every change. Streams go straight to the API and are not recorded or replayed.
+     */
+    public StreamSubscription<List<Long>> subscribeTopStories(Consumer<List<Long>> listener) {
+        return subscribe(TOP_STORY_URI, objectMapper.getTypeFactory().constructCollectionType(List.class, Long.class),
+                listener);
+    }
+
+    /**
+     * Streams one item, calling {@code listener} with the whole item on connect and after every
+     * change, e.g. to a story's score or kids. Deleted or missing items are delivered as null.
+     */
+    public StreamSubscription<HackerNewsItem> subscribeItem(Long itemId, Consumer<HackerNewsItem> listener) {
+        return subscribe("/item/" + itemId + ".json", objectMapper.constructType(HackerNewsItem.class), listener);
+    }
+
+    private <T> StreamSubscription<T> subscribe(String uri, JavaType valueType, Consumer<T> listener) {
+        StreamSubscription<T> subscription = new StreamSubscription<>(streamClient(), URI.create(baseUrl + uri),
+                streamPolicy, objectMapper, valueType, listener);
+        subscriptions.removeIf(StreamSubscription::isClosed);
+        subscriptions.add(subscription);
+        return subscription.start();
+    }
+
+    private synchronized HttpClient streamClient() {
+        if (streamClient == null) {
+            streamClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(streamPolicy.getConnectTimeout())
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+        }
+        return streamClient;
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(StreamSubscription::close);
+        fetchExecutor.shutdownNow();
+        if (journalShutdownHook != null) {
+            try {
+                // Otherwise the hook keeps this client, and its journal, reachable until the JVM exits
+                Runtime.getRuntime().removeShutdownHook(journalShutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down; the hook may be running too, and dumpJournal is synchronized
+            }
+        }
+        dumpJournal();
+    }
+
+    // May run both on close and from the shutdown hook, so each run appends only what the last one did not
+    private synchronized void dumpJournal() {
+        if (journalFile == null) {
+            return;
+        }
+        try {
+            journalDumpedTo = journal.dump(journalFile, journalDumpedTo);
+        } catch (IOException e) {
+            logger.error("Failed to write request journal to {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs {@code call} under the endpoint's bulkhead and circuit breaker, wrapped by the shared
+     * Retry so each attempt is counted by the breaker and an open breaker stops retries at once.
+     * Each attempt receives the context with its attempt number. The request ID is bound to the
+     * MDC for the whole call, so retry logging carries it too, and the caller's previous MDC
+     * value is restored afterwards.
+     */
+    private <T> T executeWithRetry(Endpoint endpoint, long itemId, BiFunction<RequestContext, PhaseTimer, T> call,
+                                   RequestContext context) {
+        long startNanos = System.nanoTime();
+        PhaseTimer timer = new PhaseTimer(startNanos);
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<T> attempt = () -> {
+            int number = attempts.incrementAndGet();
+            timer.attemptStarted(number);
+            try {
+                if (context.isExpired()) {
+                    throw new DeadlineExceededException("Deadline exceeded before attempt " + number);
+                }
+                if (context.isCancelled()) {
+                    throw new CancellationException("Call cancelled before attempt " + number);
+                }
+                long attemptStart = System.nanoTime();
+                T result = call.apply(context.withAttempt(number), timer);
+                attemptLatency.get(endpoint).record(System.nanoTime() - attemptStart);
+                return result;
+            } finally {
+                timer.attemptEnded();
+            }
+        };
+        Supplier<T> guarded = CircuitBreaker.decorateSupplier(circuitBreakers.get(endpoint),
+                Bulkhead.decorateSupplier(bulkheads.get(endpoint), attempt));
+        Supplier<T> decoratedSupplier = Retry.decorateSupplier(retry,
+                withinRetryBudget(guarded, attempts, endpoint, itemId, context));
+        RequestContext.Scope scope = context.bind();
+        try {
+            T result = decoratedSupplier.get();
+            RequestTimings timings = timer.finish();
+            metrics.recordTimings(timings);
+            if (result instanceof ApiResponse) {
+                ((ApiResponse<?>) result).setTimings(timings);
+            }
+            journalResult(endpoint, itemId, context, attempts.get(), startNanos, result);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordTimings(timer.finish());
+            RuntimeException failure = e instanceof RetryBudgetExhaustedException
+                    ? ((RetryBudgetExhaustedException) e).getCause() : e;
+            journalFailure(endpoint, itemId, context, attempts.get(), startNanos, failure);
+            throw failure;
         } finally {
-            MDC.clear();
+            scope.close();
+        }
+    }
+
+    private void journalResult(Endpoint endpoint, long itemId, RequestContext context, int attempts,
+                               long startNanos, Object result) {
+        int statusCode = 0;
+        RequestOutcome outcome = RequestOutcome.SUCCESS;
+        if (result instanceof ApiResponse) {
+            ApiResponse<?> response = (ApiResponse<?>) result;
+            statusCode = response.getStatusCode();
+            if (!response.isSuccess()) {
+                outcome = statusCode == 200 ? RequestOutcome.NOT_FOUND : RequestOutcome.HTTP_ERROR;
+            }
+        }
+        journal.record(endpoint, context.getRequestId(), itemId, statusCode, outcome, attempts,
+                System.nanoTime() - startNanos);
+    }
+
+    private void journalFailure(Endpoint endpoint, long itemId, RequestContext context, int attempts,
+                                long startNanos, RuntimeException failure) {
+        RequestOutcome outcome = RequestOutcome.FAILED;
+        int statusCode = 0;
+        if (failure instanceof RateLimitException) {
+            outcome = RequestOutcome.RATE_LIMITED;
+            statusCode = 429;
+        } else if (failure instanceof CallNotPermittedException || failure instanceof BulkheadFullException) {
+            outcome = RequestOutcome.REJECTED;
+        } else if (failure instanceof DeadlineExceededException || failure instanceof RequestTimeoutException) {
+            outcome = RequestOutcome.TIMED_OUT;
+        } else if (failure instanceof CancellationException) {
+            outcome = RequestOutcome.CANCELLED;
+        }
+        journal.record(endpoint, context.getRequestId(), itemId, statusCode, outcome, attempts,
+                System.nanoTime() - startNanos);
+    }
+
+    private TransportResponse send(Endpoint endpoint, String path, RequestContext attempt, PhaseTimer timer) {
+        long timeoutMillis = attemptTimeoutMillis(endpoint, attempt);
+        metrics.recordRequestSent();
+        try {
+            return timer.exchange(() -> transport.get(path, attempt, timeoutMillis));
+        } catch (SocketTimeoutException | ConnectTimeoutException e) {
+            throw new RequestTimeoutException(endpoint + " attempt timed out after " + timeoutMillis + "ms",
+                    timeoutMillis, e);
+        } catch (IOException e) {
+            // Left unchecked, these would slip past every catch (RuntimeException) up to the caller
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Connect and read timeout for one attempt: the adaptive timeout, if configured, cut down
+     * to whatever is left of the call's deadline. 0 means no timeout.
+     */
+    private long attemptTimeoutMillis(Endpoint endpoint, RequestContext attempt) {
+        long timeoutNanos = Long.MAX_VALUE;
+        if (timeoutPolicy != null) {
+            long minNanos = timeoutPolicy.getMinTimeout().toNanos();
+            long maxNanos = timeoutPolicy.getMaxTimeout().toNanos();
+            LatencyTracker latency = attemptLatency.get(endpoint);
+            timeoutNanos = maxNanos;
+            if (latency.size() >= timeoutPolicy.getMinSamples()) {
+                long observed = (long) (latency.percentileNanos(timeoutPolicy.getLatencyPercentile())
+                        * timeoutPolicy.getMultiplier());
+                timeoutNanos = Math.max(minNanos, Math.min(maxNanos, observed));
+            }
+        }
+        timeoutNanos = Math.min(timeoutNanos, attempt.remainingNanos());
+        if (timeoutNanos == Long.MAX_VALUE) {
+            return 0;
         }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
     }
 
-    private void checkRateLimit(Response response) {
+    private InputStream openBody(TransportResponse response, PhaseTimer timer, HttpRequestEvent httpEvent)
+            throws IOException {
+        return ResponseBodies.open(response.body(), response.header("Content-Encoding"),
+                bodyListener(timer, httpEvent));
+    }
+
+    private String readBodyAsString(TransportResponse response, PhaseTimer timer, HttpRequestEvent httpEvent) {
+        try {
+            return ResponseBodies.readString(response.body(), response.header("Content-Encoding"),
+                    bodyListener(timer, httpEvent));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ResponseBodies.BodyListener bodyListener(PhaseTimer timer, HttpRequestEvent httpEvent) {
+        return (contentEncoding, wireBytes, decodedBytes, wireReadNanos) -> {
+            metrics.recordBody(contentEncoding, wireBytes, decodedBytes);
+            timer.recordBodyRead(wireReadNanos);
+            httpEvent.contentEncoding = contentEncoding;
+            httpEvent.compressedBytes = wireBytes;
+            httpEvent.uncompressedBytes = decodedBytes;
+        };
+    }
+
+    // JFR events are always allocated but only timed and populated when their type is enabled
+    private static HttpRequestEvent beginHttpEvent(Endpoint endpoint, long itemId, RequestContext attempt) {
+        HttpRequestEvent event = new HttpRequestEvent();
+        if (event.isEnabled()) {
+            event.endpoint = endpoint.name();
+            event.itemId = itemId;
+            event.requestId = attempt.getRequestId();
+            event.attempt = attempt.getAttempt();
+            event.begin();
+        }
+        return event;
+    }
+
+    private static JsonDecodeEvent beginDecodeEvent(Endpoint endpoint, long itemId, String targetType) {
+        JsonDecodeEvent event = new JsonDecodeEvent();
+        if (event.isEnabled()) {
+            event.endpoint = endpoint.name();
+            event.itemId = itemId;
+            event.targetType = targetType;
+            event.begin();
+        }
+        return event;
+    }
+
+    private static void emitRetryEvent(Endpoint endpoint, long itemId, RequestContext context, int attempt,
+                                       RuntimeException failure) {
+        RetryAttemptEvent event = new RetryAttemptEvent();
+        if (event.isEnabled()) {
+            event.endpoint = endpoint.name();
+            event.itemId = itemId;
+            event.requestId = context.getRequestId();
+            event.attempt = attempt;
+            event.failure = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+            event.retryAfterSeconds = failure instanceof RateLimitException
+                    ? ((RateLimitException) failure).getRetryAfter() : -1;
+            event.backoffMillis = BACKOFF.apply(attempt);
+            event.commit();
+        }
+    }
+
+    /**
+     * Charges each retry against the client-wide {@link RetryBudget}. The decision is made when
+     * an attempt fails so the final attempt never consumes budget; a denied retry is wrapped so
+     * the Retry gives up immediately, and unwrapped again in {@link #executeWithRetry}.
+     */
+    private <T> Supplier<T> withinRetryBudget(Supplier<T> supplier, AtomicInteger attempts,
+                                              Endpoint endpoint, long itemId, RequestContext context) {
+        return () -> {
+            if (attempts.get() == 0) {
+                retryBudget.recordRequest();
+            }
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                int attempt = attempts.get();
+                if (attempt < MAX_ATTEMPTS && isRetryable(e)) {
+                    // Don't schedule an attempt that cannot finish before the deadline
+                    long backoffNanos = TimeUnit.MILLISECONDS.toNanos(BACKOFF.apply(attempt));
+                    long expectedNanos = attemptLatency.get(endpoint).percentileNanos(50);
+                    if (context.remainingNanos() < backoffNanos + expectedNanos) {
+                        throw new DeadlineExceededException(
+                                "Not retrying, deadline leaves too little time for another attempt", e);
+                    }
+                    if (!retryBudget.tryAcquireRetry()) {
+                        logger.warn("Retry budget exhausted, not retrying. Reason: {}", e.getMessage());
+                        throw new RetryBudgetExhaustedException(e);
+                    }
+                    emitRetryEvent(endpoint, itemId, context, attempt, e);
+                }
+                throw e;
+            }
+        };
+    }
+
+    private void checkRateLimit(TransportResponse response) {
         if (response.statusCode() == 429) {
             String retryAfter = response.header("Retry-After");
             int retrySeconds = retryAfter != null ? Integer.parseInt(retryAfter) : 60;
             logger.error("Rate limit exceeded. Retry after {} seconds", retrySeconds);
+            closeQuietly(response);
             throw new RateLimitException("Rate limit exceeded", retrySeconds);
         }
     }
 
-    private void setupMDC(String requestId) {
-        MDC.put(REQUEST_ID, requestId);
+    private void closeQuietly(TransportResponse response) {
+        try {
+            response.body().close();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to release response body: {}", e.getMessage());
+        }
     }
 
     public static String generateRequestId() {
-        return UUID.randomUUID().toString();
+        return RequestContext.generateRequestId();
     }
 }
\ No newline at end of file
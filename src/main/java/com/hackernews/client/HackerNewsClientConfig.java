@@ -0,0 +1,118 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Data
+@Builder
+public class HackerNewsClientConfig {
+    // API root, e.g. a LocalStubServer's for load tests; -Dhn.base.url points the test suite elsewhere
+    @Builder.Default
+    private String baseUrl = System.getProperty("hn.base.url", "https://hacker-news.firebaseio.com/v0");
+    // Bounds for the adaptive in-flight limit used by bulk and crawl fetches
+    @Builder.Default
+    private int initialConcurrency = 8;
+    @Builder.Default
+    private int minConcurrency = 1;
+    @Builder.Default
+    private int maxConcurrency = 64;
+    // Share of the limit that waiting BACKGROUND fetches get even while INTERACTIVE ones are queued
+    @Builder.Default
+    private double backgroundMinShare = 0.1;
+    // Concurrent calls allowed per endpoint and how long a caller may wait for a slot
+    @Builder.Default
+    private int listBulkheadSize = 8;
+    @Builder.Default
+    private int itemBulkheadSize = 64;
+    @Builder.Default
+    private Duration bulkheadMaxWait = Duration.ofMillis(250);
+    // Failure percentage over the last circuitBreakerWindow calls that opens an endpoint's breaker
+    @Builder.Default
+    private float circuitBreakerFailureRate = 50f;
+    @Builder.Default
+    private int circuitBreakerWindow = 20;
+    @Builder.Default
+    private Duration circuitBreakerOpenDuration = Duration.ofSeconds(10);
+    // Retries may add at most this fraction over first attempts within the window
+    @Builder.Default
+    private double retryBudgetRatio = 0.1;
+    @Builder.Default
+    private int retryBudgetMinPerSecond = 1;
+    @Builder.Default
+    private Duration retryBudgetWindow = Duration.ofSeconds(10);
+    // Number of request records kept in the in-memory journal
+    @Builder.Default
+    private int journalCapacity = 65536;
+    // When set, the journal is appended to this file as text on close and at JVM shutdown
+    private Path journalFile;
+    // Rate at which callers intend to issue requests, used to correct latency histograms
+    // for coordinated omission; null records latencies as observed
+    private Duration latencyExpectedInterval;
+    // Per-attempt timeouts derived from observed latency; null leaves attempts unbounded
+    // unless the call's RequestContext has a deadline
+    private TimeoutPolicy timeoutPolicy;
+    // Record/replay of HTTP exchanges, e.g. -Dhn.archive.mode=replay -Dhn.archive.file=... for the suite
+    @Builder.Default
+    private ArchiveMode archiveMode = ArchiveMode.fromProperty(System.getProperty("hn.archive.mode"));
+    @Builder.Default
+    private Path archiveFile = Paths.get(System.getProperty("hn.archive.file", "target/hn-exchanges.archive"));
+    // Whether replay waits as long as the recorded exchange took
+    @Builder.Default
+    private boolean replayLatency = Boolean.getBoolean("hn.archive.latency");
+    // Items and ID lists are decoded with the streaming ItemDecoder; false binds them through
+    // prebuilt ObjectReaders instead
+    @Builder.Default
+    private boolean streamingDecoder = true;
+    // Hedged getItem requests; null disables hedging
+    private HedgingPolicy hedgingPolicy;
+    // Items kept for ancestor and poll resolution, shared across calls
+    @Builder.Default
+    private Duration itemCacheTtl = Duration.ofMinutes(1);
+    @Builder.Default
+    private int itemCacheMaxSize = 100_000;
+    // When positive, items are cached serialized in direct buffers off the Java heap, bounded by
+    // these bytes instead of itemCacheMaxSize and allocated a segment at a time as the cache fills.
+    // The key index stays on the heap and grows with the entries: about 130-270 MB per GB of cache
+    // once full of 256 byte items
+    private long offHeapItemCacheBytes;
+    @Builder.Default
+    private int offHeapSegmentBytes = 64 * 1024 * 1024;
+    // Item IDs that came back null, and deleted or dead items, answered without the network until
+    // this expires; zero disables
+    @Builder.Default
+    private Duration negativeCacheTtl = Duration.ofSeconds(30);
+    @Builder.Default
+    private int negativeCacheMaxSize = 100_000;
+    // Bloom filter of IDs gone for good: null at least deadItemFilterIdMargin below an ID known to
+    // exist. A false positive reports a live item as gone; zero capacity disables the filter. It is
+    // allocated on the first such null (about 3.6 MB at the defaults) and stops growing once full
+    @Builder.Default
+    private int deadItemFilterCapacity = 1_000_000;
+    @Builder.Default
+    private double deadItemFilterFalsePositiveRate = 1e-6;
+    // Newer items are not always readable in ID order, so nulls this close to the newest known ID
+    // only go into the negative cache
+    @Builder.Default
+    private long deadItemFilterIdMargin = 10_000;
+    // Top stories list kept for stale reads; only consulted when a staleness policy is set
+    @Builder.Default
+    private Duration listCacheTtl = Duration.ofSeconds(30);
+    // Cache-first getItem/getTopStories serving expired values while revalidating or on errors;
+    // null always fetches
+    private StalenessPolicy stalenessPolicy;
+    // User profiles change slowly, so they are kept longer
+    @Builder.Default
+    private Duration userCacheTtl = Duration.ofMinutes(10);
+    @Builder.Default
+    private int userCacheMaxSize = 10_000;
+    // Reconnect and idle detection for subscribeTopStories/subscribeItem; null uses StreamPolicy.defaults()
+    private StreamPolicy streamPolicy;
+
+    public static HackerNewsClientConfig defaults() {
+        return HackerNewsClientConfig.builder().build();
+    }
+}
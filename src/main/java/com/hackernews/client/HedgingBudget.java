@@ -0,0 +1,37 @@
+package com.hackernews.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps hedged requests at a fraction of primary requests.
+ * Every primary request deposits {@code ratio} tokens, a hedge withdraws one.
+ */
+class HedgingBudget {
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    HedgingBudget(double ratio, int burst) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.capacity = Math.max(1, burst) * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    void onRequest() {
+        tokens.getAndUpdate(current -> Math.min(capacity, current + depositPerRequest));
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
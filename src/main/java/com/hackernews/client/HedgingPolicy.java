@@ -0,0 +1,25 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Builder
+public class HedgingPolicy {
+    // Send a second request once the first has been outstanding longer than this percentile
+    @Builder.Default
+    private double latencyPercentile = 95.0;
+    // Lower bound on the hedge delay, also used until enough latency samples exist
+    @Builder.Default
+    private Duration minDelay = Duration.ofMillis(50);
+    @Builder.Default
+    private int minSamples = 20;
+    // Hedged requests may add at most this fraction on top of primary requests
+    @Builder.Default
+    private double maxExtraLoad = 0.05;
+    // Tokens available for a burst of hedges before the ratio applies
+    @Builder.Default
+    private int burstHedges = 10;
+}
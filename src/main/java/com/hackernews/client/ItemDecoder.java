@@ -0,0 +1,278 @@
+package com.hackernews.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.ItemField;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decodes item and ID-list payloads with Jackson's streaming parser, matching the fixed item
+ * schema field by field instead of binding through reflection. Unknown fields are skipped, as
+ * {@link HackerNewsItem} ignores them. A payload of an unexpected shape, or any payload when
+ * streaming is disabled, goes to an ObjectReader built once, which decodes it (or fails) exactly
+ * as {@code ObjectMapper.readValue} would.
+ */
+public class ItemDecoder {
+    private final JsonFactory factory;
+    private final ObjectReader itemReader;
+    private final ObjectReader idListReader;
+    // Per-value fallbacks, applying Jackson's usual coercions to values of an unexpected type
+    private final ObjectReader longReader;
+    private final ObjectReader intReader;
+    private final ObjectReader stringReader;
+    private final ObjectReader booleanReader;
+    private final boolean streaming;
+
+    public ItemDecoder(ObjectMapper objectMapper, boolean streaming) {
+        this.factory = objectMapper.getFactory();
+        this.itemReader = objectMapper.readerFor(HackerNewsItem.class);
+        this.idListReader = objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Long.class));
+        this.longReader = objectMapper.readerFor(Long.class);
+        this.intReader = objectMapper.readerFor(Integer.class);
+        this.stringReader = objectMapper.readerFor(String.class);
+        this.booleanReader = objectMapper.readerFor(Boolean.class);
+        this.streaming = streaming;
+    }
+
+    // Returns null for a JSON null, which is how the API reports a missing item
+    public HackerNewsItem decodeItem(InputStream in) throws IOException {
+        return decodeItem(in, ItemField.ALL);
+    }
+
+    public HackerNewsItem decodeItem(byte[] json) throws IOException {
+        return decodeItem(json, ItemField.ALL);
+    }
+
+    /**
+     * Decodes only the given fields and leaves the rest null. Skipped values are scanned past
+     * without being turned into strings or lists, so leaving out {@code text} saves most of
+     * the work on comments.
+     */
+    public HackerNewsItem decodeItem(InputStream in, Set<ItemField> fields) throws IOException {
+        if (!streaming) {
+            return project(itemReader.readValue(in), fields);
+        }
+        try (JsonParser parser = factory.createParser(in)) {
+            return readItem(parser, fields);
+        }
+    }
+
+    public HackerNewsItem decodeItem(byte[] json, Set<ItemField> fields) throws IOException {
+        if (!streaming) {
+            return project(itemReader.readValue(json), fields);
+        }
+        try (JsonParser parser = factory.createParser(json)) {
+            return readItem(parser, fields);
+        }
+    }
+
+    public List<Long> decodeIds(InputStream in) throws IOException {
+        if (!streaming) {
+            return idListReader.readValue(in);
+        }
+        try (JsonParser parser = factory.createParser(in)) {
+            return readIds(parser);
+        }
+    }
+
+    public List<Long> decodeIds(byte[] json) throws IOException {
+        if (!streaming) {
+            return idListReader.readValue(json);
+        }
+        try (JsonParser parser = factory.createParser(json)) {
+            return readIds(parser);
+        }
+    }
+
+    private HackerNewsItem readItem(JsonParser parser, Set<ItemField> fields) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return project(itemReader.readValue(parser), fields);
+        }
+        HackerNewsItem item = new HackerNewsItem();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            token = parser.nextToken();
+            ItemField field = ItemField.forJsonName(name);
+            if (field == null || !fields.contains(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case ID:
+                    item.setId(readLong(parser));
+                    break;
+                case DELETED:
+                    item.setDeleted(readBoolean(parser));
+                    break;
+                case TYPE:
+                    item.setType(readString(parser));
+                    break;
+                case BY:
+                    item.setBy(readString(parser));
+                    break;
+                case TIME:
+                    item.setTime(readLong(parser));
+                    break;
+                case TEXT:
+                    item.setText(readString(parser));
+                    break;
+                case DEAD:
+                    item.setDead(readBoolean(parser));
+                    break;
+                case PARENT:
+                    item.setParent(readLong(parser));
+                    break;
+                case POLL:
+                    item.setPoll(readLong(parser));
+                    break;
+                case KIDS:
+                    item.setKids(readIdArray(parser));
+                    break;
+                case URL:
+                    item.setUrl(readString(parser));
+                    break;
+                case SCORE:
+                    item.setScore(readInt(parser));
+                    break;
+                case TITLE:
+                    item.setTitle(readString(parser));
+                    break;
+                case PARTS:
+                    item.setParts(readIdArray(parser));
+                    break;
+                case DESCENDANTS:
+                    item.setDescendants(readInt(parser));
+                    break;
+            }
+        }
+        return item;
+    }
+
+    // Clears what the projection leaves out of an item decoded in full
+    private static HackerNewsItem project(HackerNewsItem item, Set<ItemField> fields) {
+        if (item == null || fields.size() == ItemField.ALL.size()) {
+            return item;
+        }
+        HackerNewsItem projected = new HackerNewsItem();
+        for (ItemField field : fields) {
+            switch (field) {
+                case ID:
+                    projected.setId(item.getId());
+                    break;
+                case DELETED:
+                    projected.setDeleted(item.getDeleted());
+                    break;
+                case TYPE:
+                    projected.setType(item.getType());
+                    break;
+                case BY:
+                    projected.setBy(item.getBy());
+                    break;
+                case TIME:
+                    projected.setTime(item.getTime());
+                    break;
+                case TEXT:
+                    projected.setText(item.getText());
+                    break;
+                case DEAD:
+                    projected.setDead(item.getDead());
+                    break;
+                case PARENT:
+                    projected.setParent(item.getParent());
+                    break;
+                case POLL:
+                    projected.setPoll(item.getPoll());
+                    break;
+                case KIDS:
+                    projected.setKids(item.getKids());
+                    break;
+                case URL:
+                    projected.setUrl(item.getUrl());
+                    break;
+                case SCORE:
+                    projected.setScore(item.getScore());
+                    break;
+                case TITLE:
+                    projected.setTitle(item.getTitle());
+                    break;
+                case PARTS:
+                    projected.setParts(item.getParts());
+                    break;
+                case DESCENDANTS:
+                    projected.setDescendants(item.getDescendants());
+                    break;
+            }
+        }
+        return projected;
+    }
+
+    private Long readLong(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : longReader.readValue(parser);
+    }
+
+    private Integer readInt(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT
+                ? parser.getIntValue() : intReader.readValue(parser);
+    }
+
+    private String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : stringReader.readValue(parser);
+    }
+
+    private Boolean readBoolean(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return booleanReader.readValue(parser);
+        }
+    }
+
+    private List<Long> readIds(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            return idListReader.readValue(parser);
+        }
+        return readIdArray(parser);
+    }
+
+    // Reads the array the parser is positioned at; any element that is not an integer falls back to the reader
+    private List<Long> readIdArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return idListReader.readValue(parser);
+        }
+        List<Long> ids = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                ids.add(parser.getLongValue());
+            } else if (token == JsonToken.VALUE_NULL) {
+                ids.add(null);
+            } else {
+                ids.add(longReader.readValue(parser));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Decoded form of one RequestJournal record
+@Data
+@Builder
+public class JournalEvent {
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private long sequence;
+    private long timestampMillis;
+    private String requestId;
+    private Endpoint endpoint;
+    private long itemId;
+    private int statusCode;
+    private RequestOutcome outcome;
+    private int attempts;
+    private long latencyNanos;
+
+    // Same prefix as the logback pattern so journal dumps can be grepped alongside the log
+    public String format() {
+        StringBuilder line = new StringBuilder(128)
+                .append(TIMESTAMP.format(Instant.ofEpochMilli(timestampMillis)))
+                .append(" [RequestId: ").append(requestId).append("] - ")
+                .append(endpoint);
+        if (endpoint == Endpoint.ITEM) {
+            line.append(" item=").append(itemId);
+        }
+        return line.append(" status=").append(statusCode)
+                .append(" outcome=").append(outcome)
+                .append(" attempts=").append(attempts)
+                .append(" latency=").append(String.format("%.1fms", latencyNanos / 1_000_000.0))
+                .toString();
+    }
+}
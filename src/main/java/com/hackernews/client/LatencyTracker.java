@@ -0,0 +1,66 @@
+package com.hackernews.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent latency samples in a fixed ring so that percentiles of
+ * recent behaviour can be read cheaply. Percentiles are recomputed at most once
+ * every {@link #RECOMPUTE_INTERVAL} samples.
+ */
+class LatencyTracker {
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    // Published as one object, so a reader never pairs one thread's samples with another's count
+    private volatile Snapshot snapshot = new Snapshot(new long[0], -1);
+
+    private static final class Snapshot {
+        final long[] sorted;
+        final long takenAt;
+
+        Snapshot(long[] sorted, long takenAt) {
+            this.sorted = sorted;
+            this.takenAt = takenAt;
+        }
+    }
+
+    LatencyTracker(int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    void record(long latencyNanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+
+    long size() {
+        return Math.min(count.get(), samples.length());
+    }
+
+    long percentileNanos(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        Snapshot current = snapshot;
+        if (current.takenAt < 0 || total - current.takenAt >= RECOMPUTE_INTERVAL) {
+            int n = (int) Math.min(total, samples.length());
+            long[] sorted = new long[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            current = new Snapshot(sorted, total);
+            snapshot = current;
+        }
+        long[] sorted = current.sorted;
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+}
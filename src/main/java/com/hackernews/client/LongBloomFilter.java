@@ -0,0 +1,104 @@
+package com.hackernews.client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size Bloom filter over longs that threads can add to and query without locking.
+ * A lookup may wrongly report a value as present, at about the configured rate once
+ * {@code expectedInsertions} values are in, but never misses one that was added. Past that
+ * many values the filter stops accepting more, so the false positive rate never climbs above
+ * the configured one; values turned away are simply not remembered.
+ */
+public class LongBloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final LongAdder insertions = new LongAdder();
+
+    public LongBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Bloom filter needs positive insertions and a rate in (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.capacity = expectedInsertions;
+    }
+
+    // Returns true if the value was not already (probably) present and the filter had room for it
+    public boolean add(long value) {
+        // Concurrent adds may overshoot the capacity by a few values, which the rate tolerates
+        if (isFull()) {
+            return false;
+        }
+        long h1 = mix(value);
+        long h2 = mix(h1) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long value) {
+        long h1 = mix(value);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isFull() {
+        return insertions.sum() >= capacity;
+    }
+
+    // Distinct values added so far, undercounted by the values that collided with earlier ones
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    public long getSizeBytes() {
+        return bitCount / 8;
+    }
+
+    // False positive rate at the current fill
+    public double getFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) getInsertions() / bitCount), hashCount);
+    }
+
+    // Finaliser of MurmurHash3's 64-bit variant, spreading sequential IDs across the bits
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LongBloomFilter{insertions=%d, sizeBytes=%d, hashes=%d, falsePositiveRate=%.2e}",
+                getInsertions(), getSizeBytes(), hashCount, getFalsePositiveRate());
+    }
+}
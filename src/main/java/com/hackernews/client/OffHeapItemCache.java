@@ -0,0 +1,566 @@
+package com.hackernews.client;
+
+import com.hackernews.model.HackerNewsItem;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Item cache that keeps serialized items in direct ByteBuffers, so a large working set adds
+ * almost nothing to the heap the GC has to trace. Memory is a ring of fixed-size segments that
+ * items are appended to. When the ring is full, the oldest segment is wiped and reused, which
+ * evicts its items in write order. The index is an open-addressing table of primitive
+ * arrays mapping item IDs to record locations.
+ * <p>
+ * Writes are serialized by a lock. Reads take no lock: a reader copies the record and then
+ * checks that its segment was not reused meanwhile, treating a reused segment as a miss. A
+ * writer fences between bumping a segment's generation and overwriting its bytes, so a reader
+ * that sees new bytes also sees the new generation.
+ */
+public class OffHeapItemCache implements Cache<Long, HackerNewsItem> {
+    // Record header: item ID, write time, payload length
+    private static final int HEADER_BYTES = 8 + 8 + 4;
+    private static final int SEGMENT_BITS = 10;
+    private static final int GENERATION_BITS = 22;
+    private static final int MAX_SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+    private static final double MAX_LOAD = 0.75;
+    // Sizes the initial index for one segment of records; rehashing grows it as entries arrive
+    private static final int EXPECTED_RECORD_BYTES = 256;
+
+    private final ByteBuffer[] segments;
+    private final int segmentBytes;
+    private final long ttlNanos;
+    // Bumped whenever a segment is reused, invalidating locations that point into it
+    private final AtomicIntegerArray generations;
+    private final int[] segmentLiveEntries;
+    private final long[] segmentLiveBytes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile Index index;
+    private volatile int liveEntries;
+    private volatile long liveBytes;
+    private int current;
+    private int writePosition;
+    private boolean wrapped;
+
+    /** Open-addressing table; a key of 0 marks an empty slot and a location of 0 an absent entry. */
+    private static final class Index {
+        final AtomicLongArray keys;
+        final AtomicLongArray locations;
+        final int mask;
+        int occupied;
+
+        Index(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.locations = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        int slotFor(long key) {
+            int slot = (int) mix(key) & mask;
+            while (true) {
+                long existing = keys.get(slot);
+                if (existing == key || existing == 0) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    public OffHeapItemCache(Duration ttl, long capacityBytes, int segmentBytes) {
+        int segmentCount = (int) Math.min(MAX_SEGMENTS, Math.max(2, capacityBytes / segmentBytes));
+        this.segments = new ByteBuffer[segmentCount];
+        this.segmentBytes = segmentBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.generations = new AtomicIntegerArray(segmentCount);
+        this.segmentLiveEntries = new int[segmentCount];
+        this.segmentLiveBytes = new long[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            generations.set(i, 1);
+        }
+        // Segments are allocated on first use and the index grows with the entries, so an oversized
+        // cache costs little until it fills
+        this.index = new Index(tableSizeFor(segmentBytes / EXPECTED_RECORD_BYTES));
+        this.segments[0] = ByteBuffer.allocateDirect(segmentBytes);
+    }
+
+    @Override
+    public HackerNewsItem get(Long key) {
+        Lookup<HackerNewsItem> lookup = lookup(key);
+        return lookup == null || lookup.isExpired() ? null : lookup.getValue();
+    }
+
+    @Override
+    public Lookup<HackerNewsItem> lookup(Long key) {
+        Lookup<HackerNewsItem> lookup = key == null || key <= 0 ? null : read(key);
+        if (lookup == null || lookup.isExpired()) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return lookup;
+    }
+
+    private Lookup<HackerNewsItem> read(long key) {
+        Index table = index;
+        long location = table.locations.get(table.slotFor(key));
+        if (location == 0) {
+            return null;
+        }
+        int segment = segmentOf(location);
+        int generation = generationOf(location);
+        int offset = offsetOf(location);
+        if (generations.get(segment) != generation) {
+            return null;
+        }
+        ByteBuffer buffer = segments[segment];
+        long id = buffer.getLong(offset);
+        long writtenNanos = buffer.getLong(offset + 8);
+        int length = buffer.getInt(offset + 16);
+        if (id != key || length < 0 || length > segmentBytes - HEADER_BYTES - offset) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        // Order the copy before the second generation check, as in a seqlock
+        VarHandle.loadLoadFence();
+        if (generations.get(segment) != generation) {
+            return null;
+        }
+        return new Lookup<>(decode(ByteBuffer.wrap(payload)), System.nanoTime() - writtenNanos, ttlNanos);
+    }
+
+    @Override
+    public void put(Long key, HackerNewsItem value) {
+        if (key == null || key <= 0 || value == null) {
+            return;
+        }
+        byte[] payload = encode(value);
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            rejected.increment();
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (writePosition + recordBytes > segmentBytes) {
+                advanceSegment();
+            }
+            ByteBuffer buffer = segments[current];
+            int offset = writePosition;
+            buffer.putLong(offset, key);
+            buffer.putLong(offset + 8, System.nanoTime());
+            buffer.putInt(offset + 16, payload.length);
+            buffer.put(offset + HEADER_BYTES, payload);
+            writePosition += recordBytes;
+            segmentLiveEntries[current]++;
+            segmentLiveBytes[current] += recordBytes;
+            liveBytes += recordBytes;
+            publish(key, locationOf(current, generations.get(current), offset));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void publish(long key, long location) {
+        Index table = index;
+        int slot = table.slotFor(key);
+        long previous = table.locations.get(slot);
+        if (!release(previous)) {
+            liveEntries++;
+        }
+        // The location is set before the key so a reader that finds the key also sees it
+        table.locations.set(slot, location);
+        if (table.keys.get(slot) == 0) {
+            table.keys.set(slot, key);
+            if (++table.occupied > table.keys.length() * MAX_LOAD) {
+                rehash();
+            }
+        }
+    }
+
+    // Drops the accounting for a record being replaced or invalidated; false if it was already gone
+    private boolean release(long location) {
+        if (location == 0 || generations.get(segmentOf(location)) != generationOf(location)) {
+            return false;
+        }
+        int segment = segmentOf(location);
+        int recordBytes = HEADER_BYTES + segments[segment].getInt(offsetOf(location) + 16);
+        segmentLiveEntries[segment]--;
+        segmentLiveBytes[segment] -= recordBytes;
+        liveBytes -= recordBytes;
+        return true;
+    }
+
+    private void advanceSegment() {
+        current = (current + 1) % segments.length;
+        wrapped |= current == 0;
+        if (segments[current] == null) {
+            segments[current] = ByteBuffer.allocateDirect(segmentBytes);
+        } else if (wrapped) {
+            generations.set(current, nextGeneration(generations.get(current)));
+            // The bump must be visible before any of the segment's bytes are overwritten
+            VarHandle.storeStoreFence();
+            evictions.add(segmentLiveEntries[current]);
+            liveEntries -= segmentLiveEntries[current];
+            liveBytes -= segmentLiveBytes[current];
+            segmentLiveEntries[current] = 0;
+            segmentLiveBytes[current] = 0;
+        }
+        writePosition = 0;
+    }
+
+    // Rebuilds the index with only live entries; readers keep using the old one until it is swapped
+    private void rehash() {
+        Index old = index;
+        Index rebuilt = new Index(tableSizeFor(Math.max(liveEntries * 2L, old.keys.length() / 2)));
+        for (int slot = 0; slot < old.keys.length(); slot++) {
+            long key = old.keys.get(slot);
+            long location = old.locations.get(slot);
+            if (key != 0 && location != 0 && generations.get(segmentOf(location)) == generationOf(location)) {
+                int target = rebuilt.slotFor(key);
+                rebuilt.locations.set(target, location);
+                rebuilt.keys.set(target, key);
+                rebuilt.occupied++;
+            }
+        }
+        index = rebuilt;
+    }
+
+    @Override
+    public void invalidate(Long key) {
+        if (key == null || key <= 0) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Index table = index;
+            int slot = table.slotFor(key);
+            if (release(table.locations.get(slot))) {
+                liveEntries--;
+            }
+            table.locations.set(slot, 0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Forgets every entry; the buffers are kept for reuse
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                generations.set(i, nextGeneration(generations.get(i)));
+                segmentLiveEntries[i] = 0;
+                segmentLiveBytes[i] = 0;
+            }
+            VarHandle.storeStoreFence();
+            index = new Index(index.keys.length());
+            liveEntries = 0;
+            liveBytes = 0;
+            current = 0;
+            writePosition = 0;
+            wrapped = false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return liveEntries;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Items too large for a segment, which are not cached
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Off-heap bytes allocated so far, growing a segment at a time up to the configured capacity
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer segment : segments) {
+            allocated += segment == null ? 0 : segment.capacity();
+        }
+        return allocated;
+    }
+
+    public long getCapacityBytes() {
+        return (long) segments.length * segmentBytes;
+    }
+
+    // Off-heap bytes held by current entries, excluding replaced and invalidated records
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    // On-heap bytes of the index arrays, the only part of the cache that grows with entries on the heap
+    public long getIndexBytes() {
+        return index.keys.length() * 16L;
+    }
+
+    // Generation 0 is skipped so that no valid location is 0
+    private static int nextGeneration(int generation) {
+        int next = (generation + 1) & GENERATION_MASK;
+        return next == 0 ? 1 : next;
+    }
+
+    private static long locationOf(int segment, int generation, int offset) {
+        return (long) segment << (64 - SEGMENT_BITS) | (long) generation << 32 | (offset & 0xffffffffL);
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> (64 - SEGMENT_BITS));
+    }
+
+    private static int generationOf(long location) {
+        return (int) (location >>> 32) & GENERATION_MASK;
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private static int tableSizeFor(long entries) {
+        long size = Long.highestOneBit(Math.max(16, (long) (entries / MAX_LOAD)) - 1) << 1;
+        return (int) Math.min(size, 1 << 30);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    // Compact binary form: a bitmask of the fields present, then each present field in order
+    static byte[] encode(HackerNewsItem item) {
+        Encoder out = new Encoder();
+        int present = 0;
+        Object[] fields = {item.getId(), item.getDeleted(), item.getType(), item.getBy(), item.getTime(),
+                item.getText(), item.getDead(), item.getParent(), item.getPoll(), item.getKids(), item.getUrl(),
+                item.getScore(), item.getTitle(), item.getParts(), item.getDescendants()};
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                present |= 1 << i;
+            }
+        }
+        out.varLong(present);
+        long base = item.getId() == null ? 0 : item.getId();
+        if (item.getId() != null) {
+            out.varLong(item.getId());
+        }
+        if (item.getDeleted() != null) {
+            out.varLong(item.getDeleted() ? 1 : 0);
+        }
+        if (item.getType() != null) {
+            out.string(item.getType());
+        }
+        if (item.getBy() != null) {
+            out.string(item.getBy());
+        }
+        if (item.getTime() != null) {
+            out.varLong(item.getTime());
+        }
+        if (item.getText() != null) {
+            out.string(item.getText());
+        }
+        if (item.getDead() != null) {
+            out.varLong(item.getDead() ? 1 : 0);
+        }
+        if (item.getParent() != null) {
+            out.varLong(item.getParent() - base);
+        }
+        if (item.getPoll() != null) {
+            out.varLong(item.getPoll() - base);
+        }
+        if (item.getKids() != null) {
+            out.ids(item.getKids(), base);
+        }
+        if (item.getUrl() != null) {
+            out.string(item.getUrl());
+        }
+        if (item.getScore() != null) {
+            out.varLong(item.getScore());
+        }
+        if (item.getTitle() != null) {
+            out.string(item.getTitle());
+        }
+        if (item.getParts() != null) {
+            out.ids(item.getParts(), base);
+        }
+        if (item.getDescendants() != null) {
+            out.varLong(item.getDescendants());
+        }
+        return out.toByteArray();
+    }
+
+    static HackerNewsItem decode(ByteBuffer in) {
+        HackerNewsItem item = new HackerNewsItem();
+        int present = (int) readVarLong(in);
+        long base = 0;
+        if ((present & 1) != 0) {
+            base = readVarLong(in);
+            item.setId(base);
+        }
+        if ((present & 1 << 1) != 0) {
+            item.setDeleted(readVarLong(in) != 0);
+        }
+        if ((present & 1 << 2) != 0) {
+            item.setType(readString(in));
+        }
+        if ((present & 1 << 3) != 0) {
+            item.setBy(readString(in));
+        }
+        if ((present & 1 << 4) != 0) {
+            item.setTime(readVarLong(in));
+        }
+        if ((present & 1 << 5) != 0) {
+            item.setText(readString(in));
+        }
+        if ((present & 1 << 6) != 0) {
+            item.setDead(readVarLong(in) != 0);
+        }
+        if ((present & 1 << 7) != 0) {
+            item.setParent(base + readVarLong(in));
+        }
+        if ((present & 1 << 8) != 0) {
+            item.setPoll(base + readVarLong(in));
+        }
+        if ((present & 1 << 9) != 0) {
+            item.setKids(readIds(in, base));
+        }
+        if ((present & 1 << 10) != 0) {
+            item.setUrl(readString(in));
+        }
+        if ((present & 1 << 11) != 0) {
+            item.setScore((int) readVarLong(in));
+        }
+        if ((present & 1 << 12) != 0) {
+            item.setTitle(readString(in));
+        }
+        if ((present & 1 << 13) != 0) {
+            item.setParts(readIds(in, base));
+        }
+        if ((present & 1 << 14) != 0) {
+            item.setDescendants((int) readVarLong(in));
+        }
+        return item;
+    }
+
+    // Zig-zag varints, so the small deltas between related item IDs take a few bytes
+    private static final class Encoder {
+        private byte[] bytes = new byte[128];
+        private int length;
+
+        void varLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigZag & ~0x7fL) != 0) {
+                bytes[length++] = (byte) ((zigZag & 0x7f) | 0x80);
+                zigZag >>>= 7;
+            }
+            bytes[length++] = (byte) zigZag;
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+
+        void ids(List<Long> ids, long base) {
+            varLong(ids.size());
+            long previous = base;
+            for (Long id : ids) {
+                varLong(id - previous);
+                previous = id;
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        }
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            zigZag |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static List<Long> readIds(ByteBuffer in, long base) {
+        int count = (int) readVarLong(in);
+        List<Long> ids = new ArrayList<>(count);
+        long previous = base;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(in);
+            ids.add(previous);
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OffHeapItemCache{size=%d, hits=%d, misses=%d, hitRate=%.2f, evictions=%d, "
+                        + "liveBytes=%d, allocatedBytes=%d, capacityBytes=%d, indexBytes=%d}",
+                size(), getHits(), getMisses(), getHitRate(), getEvictions(),
+                getLiveBytes(), getAllocatedBytes(), getCapacityBytes(), getIndexBytes());
+    }
+}
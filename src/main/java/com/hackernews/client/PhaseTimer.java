@@ -0,0 +1,105 @@
+package com.hackernews.client;
+
+import com.hackernews.model.LatencyPhase;
+import com.hackernews.model.RequestTimings;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Accumulates {@link LatencyPhase} timings for one call across its attempts. Attempts of a
+ * call run one after another, so a timer is only ever touched by one thread at a time.
+ */
+final class PhaseTimer {
+    // HttpClient interceptors have no handle on the call, so the timer is exposed to them
+    // for the duration of exchange() only, on the thread doing the exchange
+    private static final ThreadLocal<PhaseTimer> EXCHANGING = new ThreadLocal<>();
+
+    static final HttpRequestInterceptor REQUEST_SENT = (request, context) -> {
+        PhaseTimer timer = EXCHANGING.get();
+        if (timer != null) {
+            timer.requestSentNanos = System.nanoTime();
+        }
+    };
+
+    static final HttpResponseInterceptor HEADERS_RECEIVED = (response, context) -> {
+        PhaseTimer timer = EXCHANGING.get();
+        if (timer != null) {
+            timer.headersReceivedNanos = System.nanoTime();
+        }
+    };
+
+    interface Exchange<T> {
+        T call() throws IOException;
+    }
+
+    private final long startNanos;
+    private final long[] phaseNanos = new long[LatencyPhase.values().length];
+    private long attemptEndNanos;
+    private long requestSentNanos;
+    private long headersReceivedNanos;
+    private long lastBodyReadNanos;
+
+    PhaseTimer(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    void attemptStarted(int attempt) {
+        long now = System.nanoTime();
+        if (attempt <= 1) {
+            add(LatencyPhase.QUEUE, now - startNanos);
+        } else {
+            add(LatencyPhase.RETRY_BACKOFF, now - attemptEndNanos);
+        }
+    }
+
+    void attemptEnded() {
+        attemptEndNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs the HTTP exchange, splitting its time into connection acquire, time to first
+     * byte, and whatever body reading happened before the response was handed back.
+     */
+    <T> T exchange(Exchange<T> exchange) throws IOException {
+        requestSentNanos = 0;
+        headersReceivedNanos = 0;
+        lastBodyReadNanos = 0;
+        long begin = System.nanoTime();
+        EXCHANGING.set(this);
+        try {
+            T result = exchange.call();
+            long end = System.nanoTime();
+            if (requestSentNanos == 0 || headersReceivedNanos == 0) {
+                add(LatencyPhase.CONNECT, end - begin);
+            } else {
+                add(LatencyPhase.CONNECT, requestSentNanos - begin);
+                add(LatencyPhase.TIME_TO_FIRST_BYTE, headersReceivedNanos - requestSentNanos);
+                add(LatencyPhase.BODY_READ, end - headersReceivedNanos);
+            }
+            return result;
+        } finally {
+            EXCHANGING.remove();
+        }
+    }
+
+    void recordBodyRead(long wireReadNanos) {
+        lastBodyReadNanos = wireReadNanos;
+        add(LatencyPhase.BODY_READ, wireReadNanos);
+    }
+
+    // Streaming decode interleaves parsing with body reads, which are already counted
+    void recordDecode(long elapsedNanos) {
+        add(LatencyPhase.DECODE, Math.max(0, elapsedNanos - lastBodyReadNanos));
+        lastBodyReadNanos = 0;
+    }
+
+    RequestTimings finish() {
+        return new RequestTimings(phaseNanos, System.nanoTime() - startNanos);
+    }
+
+    private void add(LatencyPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += Math.max(0, nanos);
+    }
+}
@@ -0,0 +1,8 @@
+package com.hackernews.client;
+
+public enum Priority {
+    // User-facing calls, served ahead of background work
+    INTERACTIVE,
+    // Backfill and crawl traffic, guaranteed a minimum share of the concurrency limit
+    BACKGROUND
+}
@@ -0,0 +1,122 @@
+package com.hackernews.client;
+
+import com.hackernews.model.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects fan-out responses until enough have succeeded, or until so many have failed
+ * that the required number of successes can no longer be reached.
+ */
+final class QuorumCollector<T> {
+    // Null until the response at that index arrives
+    private final List<ApiResponse<T>> responses;
+    private final int required;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition finished = lock.newCondition();
+
+    private int successes;
+    private int completed;
+    private boolean done;
+
+    QuorumCollector(int size, int required) {
+        this.responses = new ArrayList<>(Collections.nCopies(size, null));
+        this.required = required;
+        this.done = size == 0 || required <= 0;
+    }
+
+    // Returns true for the response that finishes the fan-out
+    boolean offer(int index, ApiResponse<T> response) {
+        lock.lock();
+        try {
+            if (done) {
+                return false;
+            }
+            responses.set(index, response);
+            completed++;
+            if (response.isSuccess()) {
+                successes++;
+            }
+            int outstanding = responses.size() - completed;
+            if (successes >= required || successes + outstanding < required || outstanding == 0) {
+                done = true;
+                finished.signalAll();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isDone() {
+        lock.lock();
+        try {
+            return done;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the fan-out is finished or the timeout elapses; either way no further
+     * responses are accepted afterwards.
+     */
+    void await(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (!done && remaining > 0) {
+                remaining = finished.awaitNanos(remaining);
+            }
+            done = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<ApiResponse<T>> successes() {
+        return collect(true);
+    }
+
+    List<ApiResponse<T>> failures() {
+        return collect(false);
+    }
+
+    int completed() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean quorumReached() {
+        lock.lock();
+        try {
+            return successes >= required;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<ApiResponse<T>> collect(boolean success) {
+        lock.lock();
+        try {
+            List<ApiResponse<T>> result = new ArrayList<>();
+            for (ApiResponse<T> response : responses) {
+                if (response != null && response.isSuccess() == success) {
+                    result.add(response);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
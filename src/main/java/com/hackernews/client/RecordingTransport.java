@@ -0,0 +1,40 @@
+package com.hackernews.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+// Passes requests through and appends each exchange to an archive; bodies are buffered to do so
+final class RecordingTransport implements Transport {
+    private static final Logger logger = LoggerFactory.getLogger(RecordingTransport.class);
+
+    private final Transport delegate;
+    private final Path archiveFile;
+
+    RecordingTransport(Transport delegate, Path archiveFile) {
+        this.delegate = delegate;
+        this.archiveFile = archiveFile;
+    }
+
+    @Override
+    public TransportResponse get(String path, RequestContext attempt, long timeoutMillis) throws IOException {
+        long startNanos = System.nanoTime();
+        TransportResponse response = delegate.get(path, attempt, timeoutMillis);
+        byte[] body;
+        try (InputStream in = response.body()) {
+            body = in.readAllBytes();
+        }
+        long latencyNanos = System.nanoTime() - startNanos;
+        try {
+            ExchangeArchive.append(archiveFile, new ExchangeArchive.Exchange(path, response.statusCode(),
+                    response.headers(), latencyNanos, body));
+        } catch (IOException e) {
+            logger.warn("Failed to record exchange for {}: {}", path, e.getMessage());
+        }
+        return new TransportResponse(response.statusCode(), response.headers(), new ByteArrayInputStream(body));
+    }
+}
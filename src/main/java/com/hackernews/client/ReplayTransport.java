@@ -0,0 +1,64 @@
+package com.hackernews.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves recorded exchanges. Repeated requests for a path get its recordings in order, so a
+ * recorded 429 followed by a 200 replays the same way, and then keep getting the last one.
+ * Paths that were never recorded get a 404.
+ */
+final class ReplayTransport implements Transport {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayTransport.class);
+
+    private final ExchangeArchive archive;
+    private final boolean replayLatency;
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    ReplayTransport(ExchangeArchive archive, boolean replayLatency) {
+        this.archive = archive;
+        this.replayLatency = replayLatency;
+    }
+
+    @Override
+    public TransportResponse get(String path, RequestContext attempt, long timeoutMillis) throws IOException {
+        List<ExchangeArchive.Exchange> recorded = archive.get(path);
+        if (recorded.isEmpty()) {
+            logger.warn("No recorded exchange for {}", path);
+            byte[] message = ("No recorded exchange for " + path).getBytes(StandardCharsets.UTF_8);
+            return new TransportResponse(404, Collections.emptyMap(), new ByteArrayInputStream(message));
+        }
+        int index = cursors.computeIfAbsent(path, p -> new AtomicInteger()).getAndIncrement();
+        ExchangeArchive.Exchange exchange = recorded.get(Math.min(index, recorded.size() - 1));
+        if (replayLatency) {
+            pause(exchange.latencyNanos, timeoutMillis);
+        }
+        return new TransportResponse(exchange.statusCode, exchange.headers, new ByteArrayInputStream(exchange.body));
+    }
+
+    // Plays back the recorded latency, failing like the live transport if it exceeds the timeout
+    private static void pause(long latencyNanos, long timeoutMillis) throws IOException {
+        long timeoutNanos = timeoutMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+        try {
+            TimeUnit.NANOSECONDS.sleep(Math.min(latencyNanos, timeoutNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying latency");
+        }
+        if (latencyNanos > timeoutNanos) {
+            throw new SocketTimeoutException("Replayed latency exceeded " + timeoutMillis + "ms timeout");
+        }
+    }
+}
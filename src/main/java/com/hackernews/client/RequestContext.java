@@ -0,0 +1,154 @@
+package com.hackernews.client;
+
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Immutable per-call context that is passed explicitly through the client, so it
+ * survives hops onto executors, futures and retries. Logging still uses the
+ * {@code requestId} MDC key, but only for the duration of {@link #bind()}, after
+ * which whatever the thread had before is put back.
+ */
+public final class RequestContext {
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+    static final String MDC_REQUEST_ID = "requestId";
+
+    private final String requestId;
+    private final long deadlineNanos;
+    private final int attempt;
+    private final Map<String, String> tags;
+    private final Priority priority;
+    private final BooleanSupplier cancelled;
+
+    private RequestContext(String requestId, long deadlineNanos, int attempt, Map<String, String> tags,
+                           Priority priority, BooleanSupplier cancelled) {
+        this.requestId = requestId;
+        this.deadlineNanos = deadlineNanos;
+        this.attempt = attempt;
+        this.tags = tags;
+        this.priority = priority;
+        this.cancelled = cancelled;
+    }
+
+    public static RequestContext of(String requestId) {
+        return new RequestContext(requestId, NO_DEADLINE, 0, Collections.emptyMap(), Priority.INTERACTIVE, NOT_CANCELLED);
+    }
+
+    public static RequestContext create() {
+        return of(generateRequestId());
+    }
+
+    // Same format as UUID.randomUUID(), but drawn from ThreadLocalRandom instead of a shared SecureRandom
+    public static String generateRequestId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    public RequestContext withDeadline(Duration timeout) {
+        return new RequestContext(requestId, System.nanoTime() + timeout.toNanos(), attempt, tags, priority, cancelled);
+    }
+
+    public RequestContext withTag(String key, String value) {
+        Map<String, String> copy = new HashMap<>(tags);
+        copy.put(key, value);
+        return new RequestContext(requestId, deadlineNanos, attempt, Collections.unmodifiableMap(copy), priority, cancelled);
+    }
+
+    RequestContext withAttempt(int attempt) {
+        return new RequestContext(requestId, deadlineNanos, attempt, tags, priority, cancelled);
+    }
+
+    public RequestContext withPriority(Priority priority) {
+        return new RequestContext(requestId, deadlineNanos, attempt, tags, priority, cancelled);
+    }
+
+    // Lets the client abandon work it no longer needs, e.g. the stragglers of a fan-out
+    RequestContext withCancellation(BooleanSupplier cancelled) {
+        return new RequestContext(requestId, deadlineNanos, attempt, tags, priority, cancelled);
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    // 1-based number of the attempt in progress, 0 outside of a request attempt
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != NO_DEADLINE;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public long remainingNanos() {
+        return hasDeadline() ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    boolean isCancelled() {
+        return cancelled.getAsBoolean();
+    }
+
+    /**
+     * Exposes the request ID to logging on the current thread until the returned scope is
+     * closed, then restores the previous value rather than clearing the caller's MDC.
+     */
+    public Scope bind() {
+        String previous = MDC.get(MDC_REQUEST_ID);
+        if (requestId != null) {
+            MDC.put(MDC_REQUEST_ID, requestId);
+        } else {
+            MDC.remove(MDC_REQUEST_ID);
+        }
+        return new Scope(previous);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestContext{requestId=" + requestId + ", attempt=" + attempt + ", priority=" + priority
+                + (hasDeadline() ? ", remainingMs=" + remainingNanos() / 1_000_000 : "")
+                + (tags.isEmpty() ? "" : ", tags=" + tags) + "}";
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                MDC.put(MDC_REQUEST_ID, previous);
+            } else {
+                MDC.remove(MDC_REQUEST_ID);
+            }
+        }
+    }
+}
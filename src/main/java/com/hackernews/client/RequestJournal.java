@@ -0,0 +1,228 @@
+package com.hackernews.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-size, lock-free ring buffer of binary request records. Writers claim a sequence
+ * with one atomic increment, mark its slot as being written with a CAS and fill the slot's
+ * {@link #FIELDS} longs; the slot's sequence is published last, and readers use it as a
+ * seqlock to skip records that were being overwritten while they read. A writer that wraps
+ * onto a slot another writer is still filling waits for it, and a record overtaken by a newer
+ * one on the same slot is dropped. Nothing is formatted until the journal is dumped or tailed.
+ * <p>
+ * Request IDs in UUID form are stored losslessly in two longs. Other IDs keep their first
+ * 16 ASCII characters.
+ */
+public class RequestJournal {
+    private static final int FIELDS = 6;
+    private static final long UNPUBLISHED = -1;
+    private static final long WRITING = -2;
+    private static final int ID_UUID = 0;
+    private static final int ID_ASCII = 1;
+    private static final int ID_NULL = 2;
+
+    private final long[] slots;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int mask;
+
+    public RequestJournal(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new long[size * FIELDS];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, UNPUBLISHED);
+        }
+    }
+
+    public void record(Endpoint endpoint, String requestId, long itemId, int statusCode,
+                       RequestOutcome outcome, int attempts, long latencyNanos) {
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        int base = slot * FIELDS;
+        if (!claim(slot, sequence)) {
+            return;
+        }
+        // The slot must read as unpublished before any of its fields change
+        VarHandle.storeStoreFence();
+
+        int idFormat = encodeRequestId(requestId, base);
+        slots[base] = System.currentTimeMillis();
+        slots[base + 3] = ((long) endpoint.ordinal())
+                | ((long) idFormat << 4)
+                | ((long) outcome.ordinal() << 8)
+                | ((long) (attempts & 0xFF) << 16)
+                | ((long) (statusCode & 0xFFFF) << 24);
+        slots[base + 4] = itemId;
+        slots[base + 5] = latencyNanos;
+
+        published.set(slot, sequence);
+    }
+
+    // Returns false if a newer record already took the slot
+    private boolean claim(int slot, long sequence) {
+        while (true) {
+            long current = published.get(slot);
+            if (current == WRITING) {
+                Thread.onSpinWait();
+            } else if (current > sequence) {
+                return false;
+            } else if (published.compareAndSet(slot, current, WRITING)) {
+                return true;
+            }
+        }
+    }
+
+    // Sequence that the next record will receive
+    public long nextSequence() {
+        return cursor.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Decodes every retained record with a sequence of at least {@code fromSequence}, oldest
+     * first, and returns the sequence to pass on the next call to follow the journal.
+     */
+    public long tail(long fromSequence, Consumer<JournalEvent> consumer) {
+        long end = cursor.get();
+        long start = Math.max(fromSequence, end - capacity());
+        long[] scratch = new long[FIELDS];
+        for (long sequence = start; sequence < end; sequence++) {
+            JournalEvent event = read(sequence, scratch);
+            if (event != null) {
+                consumer.accept(event);
+            }
+        }
+        return end;
+    }
+
+    public void forEach(Consumer<JournalEvent> consumer) {
+        tail(0, consumer);
+    }
+
+    public void dump(Writer writer) {
+        dump(writer, 0);
+    }
+
+    // Like tail, writing each record as a line
+    public long dump(Writer writer, long fromSequence) {
+        return tail(fromSequence, event -> {
+            try {
+                writer.write(event.format());
+                writer.write(System.lineSeparator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public void dump(Path file) throws IOException {
+        dump(file, 0);
+    }
+
+    // Appends the records from fromSequence on and returns the sequence to continue from
+    public long dump(Path file, long fromSequence) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            return dump(writer, fromSequence);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private JournalEvent read(long sequence, long[] scratch) {
+        int slot = (int) (sequence & mask);
+        if (published.get(slot) != sequence) {
+            return null;
+        }
+        System.arraycopy(slots, slot * FIELDS, scratch, 0, FIELDS);
+        VarHandle.loadLoadFence();
+        if (published.get(slot) != sequence) {
+            return null;
+        }
+        long packed = scratch[3];
+        return JournalEvent.builder()
+                .sequence(sequence)
+                .timestampMillis(scratch[0])
+                .requestId(decodeRequestId((int) ((packed >>> 4) & 0xF), scratch[1], scratch[2]))
+                .endpoint(Endpoint.values()[(int) (packed & 0xF)])
+                .outcome(RequestOutcome.values()[(int) ((packed >>> 8) & 0xFF)])
+                .attempts((int) ((packed >>> 16) & 0xFF))
+                .statusCode((int) ((packed >>> 24) & 0xFFFF))
+                .itemId(scratch[4])
+                .latencyNanos(scratch[5])
+                .build();
+    }
+
+    private int encodeRequestId(String requestId, int base) {
+        if (requestId == null) {
+            slots[base + 1] = 0;
+            slots[base + 2] = 0;
+            return ID_NULL;
+        }
+        if (requestId.length() == 36 && requestId.charAt(8) == '-') {
+            try {
+                UUID uuid = UUID.fromString(requestId);
+                if (uuid.toString().equals(requestId)) {
+                    slots[base + 1] = uuid.getMostSignificantBits();
+                    slots[base + 2] = uuid.getLeastSignificantBits();
+                    return ID_UUID;
+                }
+            } catch (IllegalArgumentException e) {
+                // fall through to the ASCII form
+            }
+        }
+        slots[base + 1] = packAscii(requestId, 0);
+        slots[base + 2] = packAscii(requestId, 8);
+        return ID_ASCII;
+    }
+
+    private static long packAscii(String value, int offset) {
+        long packed = 0;
+        for (int i = 0; i < 8; i++) {
+            int index = offset + i;
+            long c = index < value.length() ? (value.charAt(index) & 0x7F) : 0;
+            packed |= c << (8 * i);
+        }
+        return packed;
+    }
+
+    private static String decodeRequestId(int format, long high, long low) {
+        switch (format) {
+            case ID_UUID:
+                return new UUID(high, low).toString();
+            case ID_NULL:
+                return "null";
+            default:
+                StringBuilder id = new StringBuilder(16);
+                for (long word : new long[] {high, low}) {
+                    for (int i = 0; i < 8; i++) {
+                        char c = (char) ((word >>> (8 * i)) & 0x7F);
+                        if (c == 0) {
+                            return id.toString();
+                        }
+                        id.append(c);
+                    }
+                }
+                return id.toString();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.hackernews.client;
+
+public enum RequestOutcome {
+    SUCCESS,
+    NOT_FOUND,
+    HTTP_ERROR,
+    RATE_LIMITED,
+    REJECTED,
+    TIMED_OUT,
+    CANCELLED,
+    FAILED
+}
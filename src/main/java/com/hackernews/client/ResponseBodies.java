@@ -0,0 +1,143 @@
+package com.hackernews.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Wraps a raw response stream so that it is decompressed on the fly according to
+ * its Content-Encoding, counting bytes on both sides of the decoder and the time spent
+ * blocked on the wire.
+ */
+final class ResponseBodies {
+    private static final int BUFFER_SIZE = 8192;
+
+    private ResponseBodies() {
+    }
+
+    interface BodyListener {
+        // Called once when the body is closed
+        void onBody(String contentEncoding, long wireBytes, long decodedBytes, long wireReadNanos);
+    }
+
+    static InputStream open(InputStream raw, String contentEncoding, BodyListener listener) throws IOException {
+        CountingInputStream wire = new CountingInputStream(raw, true, null);
+        InputStream decoded = decoder(wire, contentEncoding);
+        return new CountingInputStream(decoded, false, (decodedBytes) ->
+                listener.onBody(contentEncoding, wire.count, decodedBytes, wire.readNanos));
+    }
+
+    static String readString(InputStream raw, String contentEncoding, BodyListener listener) throws IOException {
+        try (InputStream body = open(raw, contentEncoding, listener)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream decoder(InputStream wire, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return wire;
+        }
+        switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(wire, BUFFER_SIZE);
+            case "deflate":
+                return inflater(wire);
+            default:
+                return wire;
+        }
+    }
+
+    // "deflate" is zlib-wrapped per RFC 9110, but some servers send a raw deflate stream
+    private static InputStream inflater(InputStream wire) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(wire, 2);
+        int first = in.read();
+        if (first == -1) {
+            return in;
+        }
+        int second = in.read();
+        if (second != -1) {
+            in.unread(second);
+        }
+        in.unread(first);
+        // RFC 1950: method 8 in the low nibble of CMF, and CMF/FLG together a multiple of 31
+        boolean zlibHeader = second != -1 && (first & 0x0F) == 0x08 && ((first << 8) | second) % 31 == 0;
+        return new InflaterInputStream(in, new Inflater(!zlibHeader), BUFFER_SIZE);
+    }
+
+    private interface CloseCallback {
+        void onClose(long count);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final boolean timed;
+        private final CloseCallback callback;
+        private long count;
+        private long readNanos;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in, boolean timed, CloseCallback callback) {
+            super(in);
+            this.timed = timed;
+            this.callback = callback;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = timed ? System.nanoTime() : 0;
+            int b = super.read();
+            if (timed) {
+                readNanos += System.nanoTime() - start;
+            }
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = timed ? System.nanoTime() : 0;
+            int n = super.read(b, off, len);
+            if (timed) {
+                readNanos += System.nanoTime() - start;
+            }
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                if (callback != null) {
+                    callback.onClose(count);
+                }
+            }
+        }
+    }
+}
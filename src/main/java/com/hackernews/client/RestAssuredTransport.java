@@ -0,0 +1,64 @@
+package com.hackernews.client;
+
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import org.apache.http.impl.client.DefaultHttpClient;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class RestAssuredTransport implements Transport {
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    // HttpClientConfig parameter names for the connect and read timeouts, in milliseconds
+    private static final String CONNECT_TIMEOUT_PARAM = "http.connection.timeout";
+    private static final String SOCKET_TIMEOUT_PARAM = "http.socket.timeout";
+
+    private final String baseUrl;
+    // Decompression is done by ResponseBodies so the body can stream straight into Jackson
+    private final RestAssuredConfig restAssuredConfig = RestAssured.config()
+            .decoderConfig(DecoderConfig.decoderConfig().noContentDecoders())
+            .httpClient(HttpClientConfig.httpClientConfig().httpClientFactory(RestAssuredTransport::createHttpClient));
+
+    RestAssuredTransport(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    // Same client RestAssured builds by default, plus hooks that split connect time from time to first
+    // byte. RestAssured only drives AbstractHttpClient subclasses, all of which are deprecated, so a
+    // RequestConfig-based client from HttpClientBuilder is not an option here.
+    @SuppressWarnings("deprecation")
+    private static DefaultHttpClient createHttpClient() {
+        DefaultHttpClient httpClient = new DefaultHttpClient();
+        httpClient.addRequestInterceptor(PhaseTimer.REQUEST_SENT);
+        httpClient.addResponseInterceptor(PhaseTimer.HEADERS_RECEIVED, 0);
+        return httpClient;
+    }
+
+    @Override
+    public TransportResponse get(String path, RequestContext attempt, long timeoutMillis) throws IOException {
+        RestAssuredConfig config = restAssuredConfig;
+        if (timeoutMillis > 0) {
+            int timeout = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+            config = config.httpClient(config.getHttpClientConfig()
+                    .setParam(CONNECT_TIMEOUT_PARAM, timeout)
+                    .setParam(SOCKET_TIMEOUT_PARAM, timeout));
+        }
+        Response response = RestAssured.given()
+                .config(config)
+                .baseUri(baseUrl)
+                .header("X-Request-ID", attempt.getRequestId())
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .get(path);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header header : response.headers()) {
+            headers.putIfAbsent(header.getName(), header.getValue());
+        }
+        return new TransportResponse(response.statusCode(), headers, response.asInputStream());
+    }
+}
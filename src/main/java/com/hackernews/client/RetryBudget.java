@@ -0,0 +1,84 @@
+package com.hackernews.client;
+
+import java.time.Duration;
+
+/**
+ * Caps retries at a fraction of first attempts over a sliding window, shared by every
+ * call on a client. With a ratio of 0.1 retries can add at most 10% on top of the
+ * organic request rate, plus a small floor so a quiet client can still retry.
+ * <p>
+ * The window is split into one-second buckets that are reused as time moves on.
+ */
+public class RetryBudget {
+    private static final long BUCKET_NANOS = 1_000_000_000L;
+
+    private final double ratio;
+    private final int minRetriesPerWindow;
+    private final long[] requests;
+    private final long[] retries;
+    private final long[] bucketEpochs;
+    private final ClientMetrics metrics;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond, Duration window, ClientMetrics metrics) {
+        int buckets = (int) Math.max(1, window.getSeconds());
+        this.ratio = ratio;
+        this.minRetriesPerWindow = minRetriesPerSecond * buckets;
+        this.requests = new long[buckets];
+        this.retries = new long[buckets];
+        this.bucketEpochs = new long[buckets];
+        this.metrics = metrics;
+    }
+
+    public synchronized void recordRequest() {
+        requests[currentBucket()]++;
+    }
+
+    public boolean tryAcquireRetry() {
+        boolean granted;
+        synchronized (this) {
+            int bucket = currentBucket();
+            granted = sum(retries) < ratio * sum(requests) + minRetriesPerWindow;
+            if (granted) {
+                retries[bucket]++;
+            }
+        }
+        metrics.recordRetryBudgetDecision(granted);
+        return granted;
+    }
+
+    public synchronized long getRequestsInWindow() {
+        currentBucket();
+        return sum(requests);
+    }
+
+    public synchronized long getRetriesInWindow() {
+        currentBucket();
+        return sum(retries);
+    }
+
+    // Clears any bucket whose second has passed out of the window before it is reused
+    private int currentBucket() {
+        long epoch = System.nanoTime() / BUCKET_NANOS;
+        int bucket = (int) Math.floorMod(epoch, (long) requests.length);
+        if (bucketEpochs[bucket] != epoch) {
+            for (int i = 0; i < requests.length; i++) {
+                if (epoch - bucketEpochs[i] >= requests.length) {
+                    requests[i] = 0;
+                    retries[i] = 0;
+                }
+            }
+            bucketEpochs[bucket] = epoch;
+            requests[bucket] = 0;
+            retries[bucket] = 0;
+        }
+        return bucket;
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
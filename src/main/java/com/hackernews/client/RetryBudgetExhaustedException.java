@@ -0,0 +1,13 @@
+package com.hackernews.client;
+
+// Carries a retryable failure past the Retry once the budget is spent; unwrapped before callers see it
+class RetryBudgetExhaustedException extends RuntimeException {
+    RetryBudgetExhaustedException(RuntimeException cause) {
+        super(cause.getMessage(), cause, false, false);
+    }
+
+    @Override
+    public synchronized RuntimeException getCause() {
+        return (RuntimeException) super.getCause();
+    }
+}
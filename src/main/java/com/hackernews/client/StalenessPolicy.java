@@ -0,0 +1,21 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Builder
+public class StalenessPolicy {
+    // An entry expired for less than this is returned at once while a background refresh runs
+    @Builder.Default
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+    // An entry expired for less than this is returned when the fetch fails or is rate limited
+    @Builder.Default
+    private Duration staleIfError = Duration.ofMinutes(10);
+
+    public static StalenessPolicy defaults() {
+        return StalenessPolicy.builder().build();
+    }
+}
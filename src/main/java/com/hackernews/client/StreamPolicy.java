@@ -0,0 +1,25 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Builder
+public class StreamPolicy {
+    // Reconnect delay after a dropped stream, doubled per consecutive failure up to the max
+    @Builder.Default
+    private Duration initialReconnectDelay = Duration.ofSeconds(1);
+    @Builder.Default
+    private Duration maxReconnectDelay = Duration.ofSeconds(30);
+    // Firebase sends a keep-alive every 30s; a stream silent for longer is treated as dead
+    @Builder.Default
+    private Duration idleTimeout = Duration.ofSeconds(75);
+    @Builder.Default
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    public static StreamPolicy defaults() {
+        return StreamPolicy.builder().build();
+    }
+}
@@ -0,0 +1,360 @@
+package com.hackernews.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A Firebase REST event stream ({@code Accept: text/event-stream}) for one API location,
+ * delivering the location's full current value to a listener after every change.
+ * <p>
+ * The stream's {@code put} and {@code patch} events are applied to a local copy of the
+ * value. After a dropped or silent connection the subscription reconnects with exponential
+ * backoff; Firebase starts every connection with a {@code put} of the whole value, which
+ * resynchronises the copy. Listeners run on their own thread and always receive the latest
+ * value: if one falls behind, the values it missed are conflated rather than queued.
+ */
+public final class StreamSubscription<T> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StreamSubscription.class);
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final StreamPolicy policy;
+    private final ObjectMapper objectMapper;
+    private final JavaType valueType;
+    private final Consumer<T> listener;
+    private final Thread reader;
+    private final Thread dispatcher;
+    private final AtomicReference<Optional<T>> pending = new AtomicReference<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private JsonNode state = NullNode.getInstance();
+    private String lastEventId;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile InputStream body;
+    private volatile long lastEventNanos = System.nanoTime();
+
+    StreamSubscription(HttpClient httpClient, URI uri, StreamPolicy policy, ObjectMapper objectMapper,
+                       JavaType valueType, Consumer<T> listener) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.policy = policy;
+        this.objectMapper = objectMapper;
+        this.valueType = valueType;
+        this.listener = listener;
+        this.reader = new Thread(this::readLoop, "hn-stream-" + uri.getPath());
+        this.dispatcher = new Thread(this::dispatchLoop, "hn-stream-listener-" + uri.getPath());
+        reader.setDaemon(true);
+        dispatcher.setDaemon(true);
+    }
+
+    StreamSubscription<T> start() {
+        dispatcher.start();
+        reader.start();
+        return this;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // put, patch and keep-alive events received across all connections
+    public long getEventsReceived() {
+        return events.sum();
+    }
+
+    public long getUpdatesDelivered() {
+        return delivered.sum();
+    }
+
+    // Values replaced by a newer one before the listener got to them
+    public long getUpdatesConflated() {
+        return conflated.sum();
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeBody();
+        reader.interrupt();
+        signal();
+    }
+
+    private void readLoop() {
+        int failures = 0;
+        while (!closed) {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream");
+                if (lastEventId != null) {
+                    request.header("Last-Event-ID", lastEventId);
+                }
+                HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                body = response.body();
+                if (response.statusCode() != 200) {
+                    throw new IOException("Stream request returned status " + response.statusCode());
+                }
+                connected = true;
+                lastEventNanos = System.nanoTime();
+                logger.debug("Stream {} connected", uri);
+                if (readEvents(body)) {
+                    failures = 0;
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Stream {} dropped: {}", uri, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // An event that does not parse or fit the value type; reconnecting resyncs from a full put
+                if (!closed) {
+                    logger.warn("Stream {} dropped after a bad event: {}", uri, e.toString());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                connected = false;
+                closeBody();
+            }
+            if (closed || !backoff(++failures)) {
+                break;
+            }
+            reconnects.increment();
+        }
+        closed = true;
+        signal();
+    }
+
+    private boolean backoff(int failures) {
+        long delay = Math.min(policy.getMaxReconnectDelay().toNanos(),
+                policy.getInitialReconnectDelay().toNanos() << Math.min(failures - 1, 20));
+        long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(jittered);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Returns whether any event arrived, so a connection that delivers nothing still backs off
+    private boolean readEvents(InputStream in) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        boolean received = false;
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while (!closed && (line = lines.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (event != null) {
+                    received = true;
+                    if (!onEvent(event, data.toString())) {
+                        return true;
+                    }
+                }
+                event = null;
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                data.append(data.length() == 0 ? "" : "\n").append(line.substring(5).trim());
+            } else if (line.startsWith("id:")) {
+                lastEventId = line.substring(3).trim();
+            }
+        }
+        return received;
+    }
+
+    // Returns false when the stream should be dropped
+    private boolean onEvent(String event, String data) throws IOException {
+        events.increment();
+        lastEventNanos = System.nanoTime();
+        switch (event) {
+            case "put":
+            case "patch":
+                JsonNode payload = objectMapper.readTree(data);
+                String path = payload.path("path").asText("/");
+                JsonNode value = payload.get("data");
+                if (event.equals("put")) {
+                    state = set(state, path, value);
+                } else if (value != null) {
+                    Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        state = set(state, path.endsWith("/") ? path + field.getKey() : path + "/" + field.getKey(),
+                                field.getValue());
+                    }
+                }
+                offer(state.isNull() ? null : objectMapper.convertValue(state, valueType));
+                return true;
+            case "keep-alive":
+                return true;
+            case "cancel":
+                logger.error("Stream {} cancelled by the server: {}", uri, data);
+                closed = true;
+                return false;
+            case "auth_revoked":
+                logger.warn("Stream {} credential revoked, reconnecting", uri);
+                return false;
+            default:
+                logger.debug("Ignoring stream event '{}' on {}", event, uri);
+                return true;
+        }
+    }
+
+    // Applies a value at a Firebase path such as "/" or "/3/score"; a null value deletes
+    private static JsonNode set(JsonNode root, String path, JsonNode value) {
+        JsonNode replacement = value == null ? NullNode.getInstance() : value;
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        if (segments.length == 1 && segments[0].isEmpty()) {
+            return replacement.deepCopy();
+        }
+        JsonNode result = root.isContainerNode() ? root : JsonNodeFactory.instance.objectNode();
+        JsonNode parent = result;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (parent instanceof ArrayNode && segment.matches("\\d+")) {
+                ArrayNode array = (ArrayNode) parent;
+                int index = Integer.parseInt(segment);
+                while (array.size() <= index) {
+                    array.addNull();
+                }
+                if (last) {
+                    array.set(index, replacement.deepCopy());
+                    while (array.size() > 0 && array.get(array.size() - 1).isNull()) {
+                        array.remove(array.size() - 1);
+                    }
+                } else {
+                    if (!array.get(index).isContainerNode()) {
+                        array.set(index, JsonNodeFactory.instance.objectNode());
+                    }
+                    parent = array.get(index);
+                }
+            } else {
+                ObjectNode object = parent instanceof ObjectNode ? (ObjectNode) parent : JsonNodeFactory.instance.objectNode();
+                if (last) {
+                    if (replacement.isNull()) {
+                        object.remove(segment);
+                    } else {
+                        object.set(segment, replacement.deepCopy());
+                    }
+                } else {
+                    if (!object.path(segment).isContainerNode()) {
+                        object.set(segment, JsonNodeFactory.instance.objectNode());
+                    }
+                    parent = object.get(segment);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void offer(T value) {
+        if (pending.getAndSet(Optional.ofNullable(value)) != null) {
+            conflated.increment();
+        }
+        signal();
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Delivers the latest value, and doubles as the watchdog that drops silent connections
+    private void dispatchLoop() {
+        long idleNanos = policy.getIdleTimeout().toNanos();
+        while (!closed || pending.get() != null) {
+            Optional<T> next = pending.getAndSet(null);
+            if (next != null) {
+                try {
+                    listener.accept(next.orElse(null));
+                } catch (RuntimeException e) {
+                    logger.error("Stream listener for {} failed", uri, e);
+                }
+                delivered.increment();
+                continue;
+            }
+            if (closed) {
+                break;
+            }
+            lock.lock();
+            try {
+                if (pending.get() == null && !closed) {
+                    changed.awaitNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(100), idleNanos / 4));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (connected && System.nanoTime() - lastEventNanos > idleNanos) {
+                logger.warn("Stream {} silent for over {}ms, reconnecting", uri, policy.getIdleTimeout().toMillis());
+                closeBody();
+            }
+        }
+    }
+
+    private void closeBody() {
+        InputStream current = body;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close stream body for {}", uri, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamSubscription{uri=%s, connected=%s, events=%d, delivered=%d, conflated=%d, reconnects=%d}",
+                uri, connected, getEventsReceived(), getUpdatesDelivered(), getUpdatesConflated(), getReconnects());
+    }
+}
@@ -0,0 +1,24 @@
+package com.hackernews.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Builder
+public class TimeoutPolicy {
+    // Per-attempt connect and read timeout is this percentile of recent attempt latency...
+    @Builder.Default
+    private double latencyPercentile = 99.0;
+    // ...times this factor, clamped to [minTimeout, maxTimeout]
+    @Builder.Default
+    private double multiplier = 3.0;
+    @Builder.Default
+    private Duration minTimeout = Duration.ofMillis(100);
+    // Also used until minSamples attempts have been observed
+    @Builder.Default
+    private Duration maxTimeout = Duration.ofSeconds(10);
+    @Builder.Default
+    private int minSamples = 20;
+}
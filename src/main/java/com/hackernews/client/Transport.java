@@ -0,0 +1,12 @@
+package com.hackernews.client;
+
+import java.io.IOException;
+
+/**
+ * Performs the GET requests behind the client. The live transport goes through RestAssured;
+ * the archive transports record those exchanges or play them back without a network.
+ */
+interface Transport {
+    // timeoutMillis bounds connecting and each read; 0 means no timeout
+    TransportResponse get(String path, RequestContext attempt, long timeoutMillis) throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.hackernews.client;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Status, headers and the still-encoded body of one HTTP exchange
+final class TransportResponse {
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final InputStream body;
+
+    TransportResponse(int statusCode, Map<String, String> headers, InputStream body) {
+        this.statusCode = statusCode;
+        Map<String, String> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitive.putAll(headers);
+        this.headers = Collections.unmodifiableMap(caseInsensitive);
+        this.body = body;
+    }
+
+    int statusCode() {
+        return statusCode;
+    }
+
+    String header(String name) {
+        return headers.get(name);
+    }
+
+    Map<String, String> headers() {
+        return headers;
+    }
+
+    InputStream body() {
+        return body;
+    }
+}
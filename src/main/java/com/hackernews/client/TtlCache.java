@@ -0,0 +1,125 @@
+package com.hackernews.client;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded map whose entries expire a fixed time after they were written. When the map grows
+ * past its bound, expired entries are dropped first and then arbitrary ones, which is cheap
+ * and good enough for caches that are refilled from the API.
+ */
+public class TtlCache<K, V> implements Cache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry<V> {
+        final V value;
+        final long writtenNanos;
+
+        Entry(V value, long writtenNanos) {
+            this.value = value;
+            this.writtenNanos = writtenNanos;
+        }
+    }
+
+    public TtlCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry, System.nanoTime())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    @Override
+    public Lookup<V> lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        long now = System.nanoTime();
+        if (entry == null || isExpired(entry, now)) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry == null ? null : new Lookup<>(entry.value, now - entry.writtenNanos, ttlNanos);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.writtenNanos > ttlNanos;
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        int target = Math.max(1, maxSize - maxSize / 10);
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && entries.size() > target) {
+            if (isExpired(iterator.next().getValue(), now)) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+        iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && entries.size() > target) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TtlCache{size=%d, hits=%d, misses=%d, hitRate=%.2f, evictions=%d}",
+                size(), getHits(), getMisses(), getHitRate(), getEvictions());
+    }
+}
@@ -0,0 +1,42 @@
+package com.hackernews.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.hackernews.HttpRequest")
+@Label("HN HTTP Request")
+@Category({"HackerNews", "Client"})
+@Description("One HTTP exchange with the HackerNews API, from sending the request to the end of the body")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Item ID")
+    public long itemId;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Status Code")
+    public int statusCode;
+
+    @Label("Content Encoding")
+    public String contentEncoding;
+
+    @Label("Wire Bytes")
+    @DataAmount
+    public long compressedBytes;
+
+    @Label("Decoded Bytes")
+    @DataAmount
+    public long uncompressedBytes;
+}
@@ -0,0 +1,24 @@
+package com.hackernews.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.hackernews.JsonDecode")
+@Label("HN JSON Decode")
+@Category({"HackerNews", "Client"})
+@Description("Decoding of a response body; the body is streamed, so this includes reading it off the socket")
+@StackTrace(false)
+public class JsonDecodeEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Item ID")
+    public long itemId;
+
+    @Label("Target Type")
+    public String targetType;
+}
@@ -0,0 +1,39 @@
+package com.hackernews.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.hackernews.RetryAttempt")
+@Label("HN Retry Attempt")
+@Category({"HackerNews", "Client"})
+@Description("A failed attempt that will be retried after a backoff")
+@StackTrace(false)
+public class RetryAttemptEvent extends Event {
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Item ID")
+    public long itemId;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Failed Attempt")
+    public int attempt;
+
+    @Label("Failure")
+    public String failure;
+
+    @Label("Retry-After")
+    @Description("Seconds requested by the server on a 429, -1 otherwise")
+    public int retryAfterSeconds;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoffMillis;
+}
@@ -12,4 +12,9 @@ public class ApiResponse<T> {
     private String requestId;
     private boolean isSuccess;
     private String errorMessage;
+    // Per-phase breakdown of the whole call including retries; responseTime covers only the last exchange
+    private RequestTimings timings;
+    // Set when the body was served from the client's cache: how old it is, and whether it is past its TTL
+    private long ageMillis;
+    private boolean stale;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.hackernews.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CommentNode {
+    private final HackerNewsItem item;
+    private final int depth;
+    // Fetched kids, in the order of item.kids
+    private final List<CommentNode> children = new ArrayList<>();
+    // Kids left out by the budget or whose fetch failed, but not kids that are gone; pass one to
+    // getCommentTree to load its subtree
+    private final List<Long> unexpandedKids = new ArrayList<>();
+}
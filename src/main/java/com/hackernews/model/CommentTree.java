@@ -0,0 +1,19 @@
+package com.hackernews.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CommentTree {
+    // Null when the root item could not be fetched
+    private CommentNode root;
+    private int fetchedComments;
+    // Kids listed in CommentNode.unexpandedKids across the tree, each the root of an unloaded subtree
+    private int unexpandedSubtrees;
+    private int failedFetches;
+    // Kids the API no longer has; they are not failures and are not listed as unexpanded
+    private int goneKids;
+    private boolean truncated;
+    private long elapsedMillis;
+}
@@ -0,0 +1,12 @@
+package com.hackernews.model;
+
+// The caller's deadline passed, or left too little time for another attempt
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
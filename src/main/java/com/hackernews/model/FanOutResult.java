@@ -0,0 +1,20 @@
+package com.hackernews.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FanOutResult<T> {
+    // Successful responses in the order their IDs were requested
+    private List<ApiResponse<T>> successes;
+    // Unsuccessful responses that completed before the fan-out finished
+    private List<ApiResponse<T>> failures;
+    // Requests that were never sent or whose result was discarded
+    private int cancelled;
+    private int requiredSuccesses;
+    private boolean quorumReached;
+    private long elapsedMillis;
+}
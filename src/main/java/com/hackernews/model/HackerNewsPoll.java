@@ -0,0 +1,24 @@
+package com.hackernews.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+public class HackerNewsPoll {
+    private HackerNewsItem poll;
+    // pollopt items in the order of poll.parts; options that could not be fetched are left out
+    private List<HackerNewsItem> options;
+    // When the option scores were last read, in epoch millis
+    private long scoresReadAt;
+
+    public int getTotalVotes() {
+        int total = 0;
+        for (HackerNewsItem option : options) {
+            total += option.getScore() == null ? 0 : option.getScore();
+        }
+        return total;
+    }
+}
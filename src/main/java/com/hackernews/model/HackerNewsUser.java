@@ -0,0 +1,17 @@
+package com.hackernews.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HackerNewsUser {
+    private String id;
+    private Long created;
+    private Integer karma;
+    private String about;
+    // Prolific users have tens of thousands of submissions, so these stay unboxed
+    private long[] submitted;
+}
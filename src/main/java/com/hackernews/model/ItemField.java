@@ -0,0 +1,58 @@
+package com.hackernews.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Fields of HackerNewsItem by their JSON name, for fetches that decode only some of them
+public enum ItemField {
+    ID("id"),
+    DELETED("deleted"),
+    TYPE("type"),
+    BY("by"),
+    TIME("time"),
+    TEXT("text"),
+    DEAD("dead"),
+    PARENT("parent"),
+    POLL("poll"),
+    KIDS("kids"),
+    URL("url"),
+    SCORE("score"),
+    TITLE("title"),
+    PARTS("parts"),
+    DESCENDANTS("descendants");
+
+    public static final Set<ItemField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ItemField.class));
+    private static final Map<String, ItemField> BY_JSON_NAME = new HashMap<>();
+
+    static {
+        for (ItemField field : values()) {
+            BY_JSON_NAME.put(field.jsonName, field);
+        }
+    }
+
+    private final String jsonName;
+
+    ItemField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    // Returns null for names outside the item schema
+    public static ItemField forJsonName(String name) {
+        return BY_JSON_NAME.get(name);
+    }
+
+    // The requested fields plus ID, which every decoded item keeps
+    public static Set<ItemField> projection(Collection<ItemField> fields) {
+        EnumSet<ItemField> projection = EnumSet.of(ID);
+        projection.addAll(fields);
+        return projection;
+    }
+}
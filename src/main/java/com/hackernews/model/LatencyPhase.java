@@ -0,0 +1,16 @@
+package com.hackernews.model;
+
+public enum LatencyPhase {
+    // Waiting for a bulkhead slot, concurrency permit or circuit breaker before the first attempt
+    QUEUE,
+    // Leasing or opening a connection until the request is handed to the socket
+    CONNECT,
+    // Request sent until response headers are received
+    TIME_TO_FIRST_BYTE,
+    // Reading the response body off the wire
+    BODY_READ,
+    // JSON parsing, excluding the time spent waiting for body bytes
+    DECODE,
+    // Waiting between a failed attempt and the next one
+    RETRY_BACKOFF
+}
@@ -0,0 +1,15 @@
+package com.hackernews.model;
+
+// A single attempt did not connect or receive data within its timeout
+public class RequestTimeoutException extends RuntimeException {
+    private final long timeoutMillis;
+
+    public RequestTimeoutException(String message, long timeoutMillis, Throwable cause) {
+        super(message, cause);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
@@ -0,0 +1,73 @@
+package com.hackernews.model;
+
+import java.util.Arrays;
+
+/**
+ * Where the time of one call went, in nanoseconds, summed over all of its attempts.
+ * The phases do not have to add up to the total; the remainder is client overhead.
+ */
+public final class RequestTimings {
+    private static final LatencyPhase[] PHASES = LatencyPhase.values();
+
+    private final long[] phaseNanos;
+    private final long totalNanos;
+
+    public RequestTimings(long[] phaseNanos, long totalNanos) {
+        if (phaseNanos.length != PHASES.length) {
+            throw new IllegalArgumentException("Expected " + PHASES.length + " phases, got " + phaseNanos.length);
+        }
+        this.phaseNanos = phaseNanos.clone();
+        this.totalNanos = totalNanos;
+    }
+
+    public long getNanos(LatencyPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public double getMillis(LatencyPhase phase) {
+        return getNanos(phase) / 1_000_000.0;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / 1_000_000.0;
+    }
+
+    // Time spent before this call's own timer started, e.g. waiting for a bulk fetch permit
+    public RequestTimings plus(LatencyPhase phase, long nanos) {
+        long[] copy = phaseNanos.clone();
+        copy[phase.ordinal()] += nanos;
+        return new RequestTimings(copy, totalNanos + nanos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestTimings)) {
+            return false;
+        }
+        RequestTimings that = (RequestTimings) o;
+        return totalNanos == that.totalNanos && Arrays.equals(phaseNanos, that.phaseNanos);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(phaseNanos) + Long.hashCode(totalNanos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RequestTimings{total=")
+                .append(String.format("%.3fms", getTotalMillis()));
+        for (LatencyPhase phase : PHASES) {
+            sb.append(", ").append(phase.name().toLowerCase()).append('=')
+                    .append(String.format("%.3fms", getMillis(phase)));
+        }
+        return sb.append('}').toString();
+    }
+}
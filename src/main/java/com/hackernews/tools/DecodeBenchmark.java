@@ -0,0 +1,140 @@
+package com.hackernews.tools;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hackernews.client.ItemDecoder;
+import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.ItemField;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares decoding of item and top stories payloads: {@code ObjectMapper.readValue} as the
+ * client used to call it, a prebuilt ObjectReader, and the streaming {@link ItemDecoder}, both in
+ * full and projected to the fields a ranking job reads.
+ * Reports time and heap allocated per decode on the calling thread.
+ * <p>
+ * Options: --iterations N (per item case and round, default 200000), --warmup N (default 100000),
+ * --rounds N (default 5).
+ */
+public class DecodeBenchmark {
+
+    @FunctionalInterface
+    private interface Decode {
+        Object decode(byte[] json) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLine.parse(args);
+        int iterations = CommandLine.intOption(options, "iterations", 200_000);
+        int warmup = CommandLine.intOption(options, "warmup", 100_000);
+        int rounds = CommandLine.intOption(options, "rounds", 5);
+
+        LocalStubServer stub = LocalStubServer.builder().build();
+        Map<String, byte[]> items = new LinkedHashMap<>();
+        items.put("story", utf8(stub.route("/v0/item/1000.json")));
+        items.put("comment", utf8(stub.route("/v0/item/100001.json")));
+        items.put("long comment", utf8(longComment()));
+        byte[] topStories = utf8(stub.route("/v0/topstories.json"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectReader itemReader = mapper.readerFor(HackerNewsItem.class);
+        ObjectReader idsReader = mapper.readerFor(new TypeReference<List<Long>>() {});
+        ItemDecoder decoder = new ItemDecoder(mapper, true);
+        // What a ranking job needs; everything else, text included, is skipped
+        Set<ItemField> ranking = ItemField.projection(EnumSet.of(ItemField.SCORE, ItemField.DESCENDANTS, ItemField.KIDS));
+
+        List<Case> cases = new ArrayList<>();
+        for (Map.Entry<String, byte[]> item : items.entrySet()) {
+            byte[] json = item.getValue();
+            cases.add(new Case(item.getKey(), "readValue", json, iterations, j -> mapper.readValue(j, HackerNewsItem.class)));
+            cases.add(new Case(item.getKey(), "ObjectReader", json, iterations, itemReader::readValue));
+            cases.add(new Case(item.getKey(), "ItemDecoder", json, iterations, decoder::decodeItem));
+            // The client decodes from the response stream
+            cases.add(new Case(item.getKey(), "ItemDecoder/is", json, iterations,
+                    j -> decoder.decodeItem(new ByteArrayInputStream(j))));
+            cases.add(new Case(item.getKey(), "projected", json, iterations, j -> decoder.decodeItem(j, ranking)));
+        }
+        int listIterations = Math.max(1, iterations / 20);
+        cases.add(new Case("top stories", "readValue", topStories, listIterations,
+                j -> mapper.readValue(j, new TypeReference<List<Long>>() {})));
+        cases.add(new Case("top stories", "ObjectReader", topStories, listIterations, idsReader::readValue));
+        cases.add(new Case("top stories", "ItemDecoder", topStories, listIterations, decoder::decodeIds));
+
+        for (Case c : cases) {
+            c.measure(Math.max(1, warmup * c.iterations / iterations));
+        }
+        // Rounds are interleaved so JIT and GC noise is spread over all cases; the best round is reported
+        for (int round = 0; round < rounds; round++) {
+            for (Case c : cases) {
+                c.measure(c.iterations);
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-14s %-14s %10s %12s%n", "payload", "decoder", "ns/op", "bytes/op");
+        for (Case c : cases) {
+            System.out.printf(Locale.ROOT, "%-14s %-14s %10.0f %12d%n", c.payload, c.decoder, c.bestNanosPerOp, c.bytesPerOp);
+        }
+    }
+
+    private static final class Case {
+        final String payload;
+        final String decoder;
+        final byte[] json;
+        final int iterations;
+        final Decode decode;
+        double bestNanosPerOp = Double.MAX_VALUE;
+        long bytesPerOp;
+
+        Case(String payload, String decoder, byte[] json, int iterations, Decode decode) {
+            this.payload = payload;
+            this.decoder = decoder;
+            this.json = json;
+            this.iterations = iterations;
+            this.decode = decode;
+        }
+
+        void measure(int count) throws Exception {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().getId();
+            Object sink = null;
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink = decode.decode(json);
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            if (sink == null) {
+                throw new IllegalStateException("Decoded nothing for " + payload);
+            }
+            bestNanosPerOp = Math.min(bestNanosPerOp, (double) elapsed / count);
+            bytesPerOp = allocated / count;
+        }
+    }
+
+    // A comment the size of a long HN reply, with the HTML and escapes real bodies carry
+    private static String longComment() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            text.append("This is paragraph ").append(i)
+                    .append(" of a long reply, quoting &quot;an earlier comment&quot; and linking ")
+                    .append("<a href=\\\"https:&#x2F;&#x2F;example.com&#x2F;post\\\" rel=\\\"nofollow\\\">a post</a>.<p>");
+        }
+        return "{\"by\":\"user42\",\"id\":39000001,\"kids\":[39000101,39000102,39000150,39000377],"
+                + "\"parent\":38999000,\"text\":\"" + text + "\",\"time\":1700000000,\"type\":\"comment\"}";
+    }
+
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
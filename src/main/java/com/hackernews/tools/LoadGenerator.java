@@ -0,0 +1,251 @@
+package com.hackernews.tools;
+
+import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.HackerNewsClientConfig;
+import com.hackernews.client.RequestContext;
+import com.hackernews.model.ApiResponse;
+import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.RateLimitException;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives sustained getItem traffic through a {@link HackerNewsClient} and reports throughput,
+ * latency percentiles, errors, retries, heap and GC activity per interval.
+ * <p>
+ * With {@code --rate} the load is open-loop: requests are scheduled at fixed times and latency
+ * is measured from the scheduled time, so a stalled client shows up as queueing instead of
+ * silently lowering the offered load. With {@code --concurrency} it is closed-loop.
+ * <p>
+ * Options: --base-url URL | --stub, --rate N | --concurrency N, --duration SECONDS,
+ * --interval SECONDS, --threads N, plus --latency-ms, --error-rate and --rate-limit-rate for
+ * the stub.
+ */
+public class LoadGenerator {
+    private final HackerNewsClient client;
+    private final List<Long> ids;
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+
+    public LoadGenerator(HackerNewsClient client, List<Long> ids) {
+        this.client = client;
+        this.ids = ids;
+    }
+
+    /**
+     * Client settings for a run. latencyExpectedInterval stays unset even in open-loop mode:
+     * requests overlap and the generator already measures from each one's intended start, so
+     * back-filling the client's histogram would count the same delay twice.
+     */
+    public static HackerNewsClientConfig clientConfig(String baseUrl) {
+        HackerNewsClientConfig.HackerNewsClientConfigBuilder config = HackerNewsClientConfig.builder();
+        if (baseUrl != null) {
+            config.baseUrl(baseUrl);
+        }
+        return config.build();
+    }
+
+    // Request latencies in microseconds, measured from each request's intended start
+    public Histogram getLatencyHistogram() {
+        return total.copy();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLine.parse(args);
+        int rate = CommandLine.intOption(options, "rate", 0);
+        int concurrency = CommandLine.intOption(options, "concurrency", rate > 0 ? 0 : 16);
+        Duration duration = Duration.ofSeconds(CommandLine.intOption(options, "duration", 60));
+        Duration interval = Duration.ofSeconds(CommandLine.intOption(options, "interval", 5));
+        int threads = CommandLine.intOption(options, "threads", Math.max(concurrency, 64));
+
+        LocalStubServer stub = null;
+        String baseUrl = options.get("base-url");
+        if (options.containsKey("stub")) {
+            stub = LocalStubServer.builder()
+                    .latency(Duration.ofMillis(CommandLine.intOption(options, "latency-ms", 0)))
+                    .errorRate(CommandLine.doubleOption(options, "error-rate", 0))
+                    .rateLimitRate(CommandLine.doubleOption(options, "rate-limit-rate", 0))
+                    .build()
+                    .start();
+            baseUrl = stub.getBaseUrl();
+        }
+        HackerNewsClientConfig config = clientConfig(baseUrl);
+        try (HackerNewsClient client = new HackerNewsClient(config)) {
+            ApiResponse<List<Long>> topStories = client.getTopStories(RequestContext.create());
+            if (!topStories.isSuccess() || topStories.getBody() == null || topStories.getBody().isEmpty()) {
+                throw new IllegalStateException("Could not load top stories: " + topStories.getErrorMessage());
+            }
+            LoadGenerator generator = new LoadGenerator(client, topStories.getBody());
+            System.out.printf(Locale.ROOT, "Target %s, %s, %ds%n", config.getBaseUrl(),
+                    rate > 0 ? "open loop at " + rate + " req/s" : "closed loop with " + concurrency + " callers",
+                    duration.toSeconds());
+            generator.run(rate, concurrency, threads, duration, interval);
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    public void run(int rate, int concurrency, int threads, Duration duration, Duration interval)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Thread driver = new Thread(() -> {
+            if (rate > 0) {
+                driveOpenLoop(workers, rate, start, end);
+            } else {
+                driveClosedLoop(workers, concurrency, end);
+            }
+        }, "load-driver");
+        driver.start();
+
+        Snapshot previous = Snapshot.take(this);
+        printHeader();
+        while (driver.isAlive()) {
+            driver.join(interval.toMillis());
+            Snapshot current = Snapshot.take(this);
+            Histogram histogram = recorder.getIntervalHistogram();
+            total.add(histogram);
+            print(start, previous, current, histogram);
+            previous = current;
+        }
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        total.add(recorder.getIntervalHistogram());
+        printSummary(start, Snapshot.take(this));
+    }
+
+    // Each request has an intended start time; latency counts from it, not from when a worker got to it
+    private void driveOpenLoop(ExecutorService workers, int rate, long start, long end) {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long intended = start; intended < end; intended += periodNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = intended;
+            workers.execute(() -> fetchOne(scheduled));
+        }
+    }
+
+    private void driveClosedLoop(ExecutorService workers, int concurrency, long end) {
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    fetchOne(System.nanoTime());
+                }
+            });
+        }
+        for (long wait = end - System.nanoTime(); wait > 0; wait = end - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private void fetchOne(long startNanos) {
+        Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        try {
+            ApiResponse<HackerNewsItem> response = client.getItem(id, RequestContext.create());
+            if (response.isSuccess()) {
+                succeeded.increment();
+            } else {
+                failed.increment();
+            }
+        } catch (RateLimitException e) {
+            // The client throws on a 429 once retries are used up rather than returning it
+            rateLimited.increment();
+        } catch (RuntimeException e) {
+            exceptions.increment();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        recorder.recordValue(Math.min(micros, total.getHighestTrackableValue()));
+    }
+
+    private static void printHeader() {
+        System.out.printf(Locale.ROOT, "%8s %9s %8s %8s %8s %8s %6s %6s %6s %7s %8s %6s %8s%n",
+                "time(s)", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "errors", "429s", "exc",
+                "retries", "heap(MB)", "gcs", "gc(ms)");
+    }
+
+    private void print(long start, Snapshot previous, Snapshot current, Histogram histogram) {
+        double seconds = (current.nanos - previous.nanos) / 1e9;
+        System.out.printf(Locale.ROOT, "%8.1f %9.1f %8.2f %8.2f %8.2f %8.2f %6d %6d %6d %7d %8d %6d %8d%n",
+                (current.nanos - start) / 1e9,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                current.failed - previous.failed,
+                current.rateLimited - previous.rateLimited,
+                current.exceptions - previous.exceptions,
+                current.retries - previous.retries,
+                current.heapUsed >> 20,
+                current.gcCount - previous.gcCount,
+                current.gcMillis - previous.gcMillis);
+    }
+
+    private void printSummary(long start, Snapshot last) {
+        long requests = total.getTotalCount();
+        double seconds = (last.nanos - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%nTotal: %d requests in %.1fs (%.1f req/s), %d ok, %d errors, %d 429s, "
+                        + "%d exceptions, %d retries%n",
+                requests, seconds, requests / seconds, succeeded.sum(), failed.sum(), rateLimited.sum(),
+                exceptions.sum(), last.retries);
+        System.out.printf(Locale.ROOT, "Latency (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                total.getValueAtPercentile(50) / 1000.0, total.getValueAtPercentile(90) / 1000.0,
+                total.getValueAtPercentile(99) / 1000.0, total.getValueAtPercentile(99.9) / 1000.0,
+                total.getMaxValue() / 1000.0);
+        System.out.printf(Locale.ROOT, "GC: %d collections, %d ms; heap %d MB used of %d MB committed%n",
+                last.gcCount, last.gcMillis, last.heapUsed >> 20, last.heapCommitted >> 20);
+        System.out.println(client.getMetrics());
+    }
+
+    private static final class Snapshot {
+        long nanos;
+        long failed;
+        long rateLimited;
+        long exceptions;
+        long retries;
+        long heapUsed;
+        long heapCommitted;
+        long gcCount;
+        long gcMillis;
+
+        static Snapshot take(LoadGenerator generator) {
+            Snapshot snapshot = new Snapshot();
+            snapshot.nanos = System.nanoTime();
+            snapshot.failed = generator.failed.sum();
+            snapshot.rateLimited = generator.rateLimited.sum();
+            snapshot.exceptions = generator.exceptions.sum();
+            snapshot.retries = generator.client.getMetrics().getRetriesGranted();
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            snapshot.heapUsed = heap.getUsed();
+            snapshot.heapCommitted = heap.getCommitted();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                snapshot.gcCount += Math.max(0, gc.getCollectionCount());
+                snapshot.gcMillis += Math.max(0, gc.getCollectionTime());
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.hackernews.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for the Hacker News API, for load tests and offline runs.
+ * <p>
+ * Content is synthetic but deterministic: stories are {@link #FIRST_STORY_ID} onwards,
+ * each story {@code s} has top-level comments {@code s * 100 + k}, and each of those
+ * has replies {@code c * 10 + k}. {@link #POLL_ID} is a poll whose option scores change
+ * over time. Authors {@code user0} to {@code user96} have profiles. Any other ID returns
+ * {@code null} like a missing item.
+ * Latency, errors and 429s can be injected.
+ * <p>
+ * Requests with {@code Accept: text/event-stream} get a Firebase-style event stream: a
+ * {@code put} of the whole value, then a change every {@code streamInterval} (two top
+ * stories swapping places, or a story's score going up) and periodic keep-alives. With
+ * {@code streamEvents} set, the stream is dropped after that many changes. The first
+ * {@code badStreamEvents} streams follow the initial {@code put} with one that replaces the
+ * value with an object, which a top stories subscriber cannot decode as a list.
+ */
+public class LocalStubServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LocalStubServer.class);
+    static final long FIRST_STORY_ID = 1000;
+    private static final int COMMENTS_PER_STORY = 5;
+    private static final int REPLIES_PER_COMMENT = 2;
+    // The poll used as the example in the API documentation, with three options
+    static final long POLL_ID = 126809;
+    private static final int POLL_OPTIONS = 3;
+
+    private final int port;
+    private final int storyCount;
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final boolean gzip;
+    private final Duration streamInterval;
+    private final int streamEvents;
+    private final AtomicInteger badStreamEventsLeft;
+    private final LongAdder requests = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @Builder
+    private LocalStubServer(int port, Integer storyCount, Duration latency, Duration jitter,
+                            double errorRate, double rateLimitRate, Boolean gzip,
+                            Duration streamInterval, int streamEvents, int badStreamEvents) {
+        this.port = port;
+        this.storyCount = storyCount == null ? 500 : storyCount;
+        this.latency = latency == null ? Duration.ZERO : latency;
+        this.jitter = jitter == null ? Duration.ZERO : jitter;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+        this.gzip = gzip == null || gzip;
+        this.streamInterval = streamInterval == null ? Duration.ofSeconds(1) : streamInterval;
+        this.streamEvents = streamEvents;
+        this.badStreamEventsLeft = new AtomicInteger(badStreamEvents);
+    }
+
+    public LocalStubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/v0/", this::handle);
+        server.start();
+        logger.info("Stub Hacker News API listening on {}", getBaseUrl());
+        return this;
+    }
+
+    // Value for HackerNewsClientConfig.baseUrl
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v0";
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            pause();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (rateLimitRate > 0 && random.nextDouble() < rateLimitRate) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            String body = route(exchange.getRequestURI().getPath());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if (accept != null && accept.contains("text/event-stream")) {
+                stream(exchange, exchange.getRequestURI().getPath(), body);
+                return;
+            }
+            send(exchange, body);
+        }
+    }
+
+    private void pause() {
+        long nanos = latency.toNanos();
+        if (!jitter.isZero()) {
+            nanos += ThreadLocalRandom.current().nextLong(jitter.toNanos());
+        }
+        if (nanos > 0) {
+            try {
+                Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    String route(String path) {
+        String resource = path.substring("/v0/".length());
+        if (resource.equals("topstories.json")) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < storyCount; i++) {
+                json.append(i == 0 ? "" : ",").append(FIRST_STORY_ID + i);
+            }
+            return json.append(']').toString();
+        }
+        if (resource.startsWith("user/") && resource.endsWith(".json")) {
+            return user(resource.substring(5, resource.length() - 5));
+        }
+        if (resource.startsWith("item/") && resource.endsWith(".json")) {
+            try {
+                return item(Long.parseLong(resource.substring(5, resource.length() - 5)));
+            } catch (NumberFormatException e) {
+                return "null";
+            }
+        }
+        return null;
+    }
+
+    private boolean isStory(long id) {
+        return id >= FIRST_STORY_ID && id < FIRST_STORY_ID + storyCount;
+    }
+
+    private String item(long id) {
+        if (id == POLL_ID) {
+            return "{\"id\":" + id + ",\"type\":\"poll\",\"by\":\"pg\",\"time\":1204403652"
+                    + ",\"title\":\"Synthetic poll\",\"score\":46,\"descendants\":0"
+                    + ",\"parts\":" + kids(id, POLL_OPTIONS) + "}";
+        }
+        if (id > POLL_ID && id <= POLL_ID + POLL_OPTIONS) {
+            long votes = (id - POLL_ID) * 10 + System.currentTimeMillis() / 1000 % 1000;
+            return "{\"id\":" + id + ",\"type\":\"pollopt\",\"by\":\"pg\",\"time\":1204403652"
+                    + ",\"poll\":" + POLL_ID + ",\"text\":\"Option " + (id - POLL_ID) + "\",\"score\":" + votes + "}";
+        }
+        if (isStory(id)) {
+            return "{\"id\":" + id + ",\"type\":\"story\",\"by\":\"user" + id % 97
+                    + "\",\"time\":" + (1700000000 + id) + ",\"title\":\"Synthetic story " + id
+                    + "\",\"url\":\"https://example.com/" + id + "\",\"score\":" + id % 500
+                    + ",\"descendants\":" + COMMENTS_PER_STORY * (1 + REPLIES_PER_COMMENT)
+                    + ",\"kids\":" + kids(id * 100, COMMENTS_PER_STORY) + "}";
+        }
+        long story = id / 100;
+        if (isStory(story) && id % 100 >= 1 && id % 100 <= COMMENTS_PER_STORY) {
+            return comment(id, story, kids(id * 10, REPLIES_PER_COMMENT));
+        }
+        long comment = id / 10;
+        if (isStory(comment / 100) && comment % 100 >= 1 && comment % 100 <= COMMENTS_PER_STORY
+                && id % 10 >= 1 && id % 10 <= REPLIES_PER_COMMENT) {
+            return comment(id, comment, "[]");
+        }
+        return "null";
+    }
+
+    // Authors are user0 to user96; a user's submissions are the stories whose ID matches their number
+    private String user(String id) {
+        int number;
+        try {
+            number = id.startsWith("user") ? Integer.parseInt(id.substring(4)) : -1;
+        } catch (NumberFormatException e) {
+            number = -1;
+        }
+        if (number < 0 || number >= 97) {
+            return "null";
+        }
+        StringBuilder submitted = new StringBuilder("[");
+        for (long story = FIRST_STORY_ID + storyCount - 1; story >= FIRST_STORY_ID; story--) {
+            if (story % 97 == number) {
+                submitted.append(submitted.length() == 1 ? "" : ",").append(story);
+            }
+        }
+        return "{\"id\":\"" + id + "\",\"created\":" + (1160418092 + number * 86400L) + ",\"karma\":" + number * 37
+                + ",\"about\":\"Synthetic user " + number + "\",\"submitted\":" + submitted.append(']') + "}";
+    }
+
+    private static String comment(long id, long parent, String kids) {
+        return "{\"id\":" + id + ",\"type\":\"comment\",\"by\":\"user" + id % 89
+                + "\",\"time\":" + (1700000000 + id % 100000) + ",\"parent\":" + parent
+                + ",\"text\":\"Synthetic comment " + id + " with enough text to look like a real reply.\""
+                + ",\"kids\":" + kids + "}";
+    }
+
+    private static String kids(long base, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int k = 1; k <= count; k++) {
+            json.append(k == 1 ? "" : ",").append(base + k);
+        }
+        return json.append(']').toString();
+    }
+
+    private void send(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 32);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Streams until the client disconnects, the stub stops or streamEvents changes were sent
+    private void stream(HttpExchange exchange, String path, String body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        event(out, "put", "{\"path\":\"/\",\"data\":" + body + "}");
+        if (badStreamEventsLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            event(out, "put", "{\"path\":\"/\",\"data\":{\"unexpected\":\"shape\"}}");
+        }
+        boolean topStories = path.endsWith("/topstories.json");
+        long itemId = topStories ? 0 : parseItemId(path);
+        long[] order = new long[topStories ? storyCount : 0];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = FIRST_STORY_ID + i;
+        }
+        long score = itemId % 500;
+        for (int change = 1; streamEvents <= 0 || change <= streamEvents; change++) {
+            try {
+                Thread.sleep(streamInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (order.length >= 2) {
+                int i = ThreadLocalRandom.current().nextInt(order.length - 1);
+                long first = order[i];
+                order[i] = order[i + 1];
+                order[i + 1] = first;
+                event(out, "patch", "{\"path\":\"/\",\"data\":{\"" + i + "\":" + order[i]
+                        + ",\"" + (i + 1) + "\":" + order[i + 1] + "}}");
+            } else if (isStory(itemId)) {
+                event(out, "put", "{\"path\":\"/score\",\"data\":" + ++score + "}");
+            }
+            if (change % 5 == 0) {
+                event(out, "keep-alive", "null");
+            }
+        }
+    }
+
+    private static long parseItemId(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        try {
+            return Long.parseLong(name.substring(0, name.length() - ".json".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void event(OutputStream out, String event, String data) throws IOException {
+        out.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Runs the stub until killed, e.g. to point the test suite at it with
+     * {@code -Dhn.base.url=http://127.0.0.1:8080/v0}.
+     * Options: --port, --stories, --latency-ms, --jitter-ms, --error-rate, --rate-limit-rate, --gzip,
+     * --stream-interval-ms, --stream-events, --bad-stream-events.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLine.parse(args);
+        LocalStubServer stub = LocalStubServer.builder()
+                .port(CommandLine.intOption(options, "port", 8080))
+                .storyCount(CommandLine.intOption(options, "stories", 500))
+                .latency(Duration.ofMillis(CommandLine.intOption(options, "latency-ms", 0)))
+                .jitter(Duration.ofMillis(CommandLine.intOption(options, "jitter-ms", 0)))
+                .errorRate(CommandLine.doubleOption(options, "error-rate", 0))
+                .rateLimitRate(CommandLine.doubleOption(options, "rate-limit-rate", 0))
+                .gzip(Boolean.parseBoolean(options.getOrDefault("gzip", "true")))
+                .streamInterval(Duration.ofMillis(CommandLine.intOption(options, "stream-interval-ms", 1000)))
+                .streamEvents(CommandLine.intOption(options, "stream-events", 0))
+                .badStreamEvents(CommandLine.intOption(options, "bad-stream-events", 0))
+                .build()
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close, "stub-shutdown"));
+        Thread.currentThread().join();
+    }
+}
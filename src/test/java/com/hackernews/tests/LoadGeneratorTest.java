@@ -0,0 +1,70 @@
+package com.hackernews.tests;
+
+import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.RequestContext;
+import com.hackernews.model.ApiResponse;
+import com.hackernews.tools.LoadGenerator;
+import com.hackernews.tools.LocalStubServer;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the load generator against a {@link LocalStubServer}; no requests reach the live API.
+ */
+public class LoadGeneratorTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGeneratorTest.class);
+    private LocalStubServer stub;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        stub = LocalStubServer.builder()
+                .latency(Duration.ofMillis(10))
+                .jitter(Duration.ofMillis(5))
+                .build()
+                .start();
+    }
+
+    @Test(description = "Test that open-loop client latencies are not back-filled on top of the generator's own correction",
+            priority = 1)
+    public void testOpenLoopClientLatencyMatchesGenerator() throws InterruptedException {
+        String requestId = HackerNewsClient.generateRequestId();
+        logger.info("Starting testOpenLoopClientLatencyMatchesGenerator, RequestId: {}", requestId);
+
+        try (HackerNewsClient client = new HackerNewsClient(LoadGenerator.clientConfig(stub.getBaseUrl()))) {
+            ApiResponse<List<Long>> topStories = client.getTopStories(RequestContext.create());
+            Assert.assertTrue(topStories.isSuccess(), "Stub should serve top stories. RequestId: " + requestId);
+            LoadGenerator generator = new LoadGenerator(client, topStories.getBody());
+
+            // 200 req/s against ~12ms responses keeps several requests in flight at once
+            generator.run(200, 0, 32, Duration.ofSeconds(2), Duration.ofSeconds(1));
+
+            Histogram generatorLatency = generator.getLatencyHistogram();
+            Histogram clientLatency = client.getMetrics().getTotalLatencyHistogram();
+            long generatorP99Micros = generatorLatency.getValueAtPercentile(99);
+            long clientP99Micros = TimeUnit.NANOSECONDS.toMicros(clientLatency.getValueAtPercentile(99));
+            logger.info("Generator p99 {}us over {} requests, client p99 {}us over {} samples, RequestId: {}",
+                    generatorP99Micros, generatorLatency.getTotalCount(), clientP99Micros,
+                    clientLatency.getTotalCount(), requestId);
+
+            // One client sample per call: the generator's requests plus the top stories fetch
+            Assert.assertEquals(clientLatency.getTotalCount(), generatorLatency.getTotalCount() + 1,
+                    "Client histogram should hold no back-filled samples. RequestId: " + requestId);
+            // The generator counts from the intended start, so it can only see more delay than the client
+            Assert.assertTrue(clientP99Micros <= generatorP99Micros * 11 / 10 + 1_000,
+                    "Client p99 " + clientP99Micros + "us should not exceed generator p99 " + generatorP99Micros
+                            + "us. RequestId: " + requestId);
+        }
+    }
+
+    @AfterClass
+    public void teardown() {
+        stub.close();
+    }
+}
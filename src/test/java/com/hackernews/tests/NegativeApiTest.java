@@ -12,12 +12,14 @@ import java.util.List;
 
 public class NegativeApiTest {
     private static final Logger logger = LoggerFactory.getLogger(NegativeApiTest.class);
+    private SharedTestData data;
     private HackerNewsClient client;
 
     @BeforeClass
     public void setup() {
         logger.info("Setting up Negative API test suite");
-        client = new HackerNewsClient();
+        data = SharedTestData.get();
+        client = data.getClient();
     }
 
     @DataProvider(name = "invalidItemIds")
@@ -104,7 +106,7 @@ public class NegativeApiTest {
         logger.info("Testing API call with null request ID");
 
         try {
-            ApiResponse<List<Long>> response = client.getTopStories(null);
+            ApiResponse<List<Long>> response = client.getTopStories((String) null);
             // Should still work, just won't have request ID tracking
             Assert.assertTrue(response.isSuccess() || !response.isSuccess(),
                     "Request should complete regardless of null request ID");
@@ -173,14 +175,14 @@ public class NegativeApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Testing story that might have no comments, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
         // Try to find a story without comments
         boolean foundStoryWithoutComments = false;
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -197,6 +199,30 @@ public class NegativeApiTest {
                 foundStoryWithoutComments, requestId);
     }
 
+    @Test(description = "Test that a repeat lookup of a missing item is answered without a request",
+            priority = 8,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testMissingItemIsRemembered() {
+        String requestId = HackerNewsClient.generateRequestId();
+        Long nonExistentId = 999999999L;
+        logger.info("Testing repeat lookup of missing item ID: {}, RequestId: {}", nonExistentId, requestId);
+
+        try (HackerNewsClient freshClient = new HackerNewsClient()) {
+            ApiResponse<HackerNewsItem> first = freshClient.getItem(nonExistentId, requestId);
+            Assert.assertEquals(first.getStatusCode(), 200, "Status code should be 200. RequestId: " + requestId);
+            Assert.assertNull(first.getBody(), "Item should not exist. RequestId: " + requestId);
+
+            ApiResponse<HackerNewsItem> repeat = freshClient.getItem(nonExistentId, requestId);
+
+            Assert.assertEquals(repeat.getStatusCode(), 200, "Repeat should look like the original. RequestId: " + requestId);
+            Assert.assertFalse(repeat.isSuccess(), "Repeat should still fail. RequestId: " + requestId);
+            Assert.assertNull(repeat.getBody(), "Repeat should have no body. RequestId: " + requestId);
+            Assert.assertEquals(freshClient.getMetrics().getKnownMissingHits(), 1,
+                    "Repeat should be answered from the negative cache. RequestId: " + requestId);
+        }
+        logger.info("Missing item remembered, RequestId: {}", requestId);
+    }
+
     @AfterClass
     public void teardown() {
         logger.info("Negative API test suite completed");
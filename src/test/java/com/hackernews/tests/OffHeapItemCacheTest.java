@@ -0,0 +1,113 @@
+package com.hackernews.tests;
+
+import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.OffHeapItemCache;
+import com.hackernews.model.HackerNewsItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exercises {@link OffHeapItemCache} directly with synthetic items; no requests reach the live API.
+ */
+public class OffHeapItemCacheTest {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapItemCacheTest.class);
+
+    @Test(description = "Test that off-heap cache readers never see a torn record while segments are reused",
+            priority = 1)
+    public void testOffHeapItemCacheConcurrentReads() throws InterruptedException {
+        String requestId = HackerNewsClient.generateRequestId();
+        logger.info("Starting testOffHeapItemCacheConcurrentReads, RequestId: {}", requestId);
+
+        // Four small segments, so the writer keeps wiping segments that readers are copying from
+        OffHeapItemCache cache = new OffHeapItemCache(Duration.ofMinutes(1), 4 * 4096, 4096);
+        int idRange = 2_000;
+        long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        AtomicLong torn = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            long id = 1;
+            while (System.nanoTime() < endNanos) {
+                cache.put(id, syntheticItem(id));
+                id = id % idRange + 1;
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < endNanos) {
+                    long id = random.nextLong(1, idRange + 1);
+                    HackerNewsItem item = cache.get(id);
+                    reads.incrementAndGet();
+                    if (item != null && !item.equals(syntheticItem(id))) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        Thread.UncaughtExceptionHandler handler = (thread, e) -> failure.compareAndSet(null, e);
+        writer.setUncaughtExceptionHandler(handler);
+        writer.start();
+        for (Thread reader : readers) {
+            reader.setUncaughtExceptionHandler(handler);
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertNull(failure.get(), "No reader or writer should throw. RequestId: " + requestId);
+        Assert.assertEquals(torn.get(), 0, "Readers should never decode a torn record. RequestId: " + requestId);
+        Assert.assertTrue(cache.getEvictions() > 0, "Segments should have been reused. RequestId: " + requestId);
+        Assert.assertTrue(cache.getHits() > 0, "Some reads should hit. RequestId: " + requestId);
+        logger.info("{} concurrent reads, none torn: {}, RequestId: {}", reads.get(), cache, requestId);
+    }
+
+    @Test(description = "Test that the off-heap cache index starts small and grows with its entries",
+            priority = 2)
+    public void testOffHeapItemCacheIndexGrowsWithEntries() {
+        String requestId = HackerNewsClient.generateRequestId();
+        logger.info("Starting testOffHeapItemCacheIndexGrowsWithEntries, RequestId: {}", requestId);
+
+        // A 1 GB cache would need over 100 MB of index if it were sized for the full capacity up front
+        OffHeapItemCache cache = new OffHeapItemCache(Duration.ofMinutes(1), 1L << 30, 1 << 20);
+        long initialIndexBytes = cache.getIndexBytes();
+        Assert.assertTrue(initialIndexBytes <= 1 << 20,
+                "Empty cache index should be sized for one segment, was " + initialIndexBytes + " bytes. RequestId: " + requestId);
+
+        int entries = 50_000;
+        for (long id = 1; id <= entries; id++) {
+            cache.put(id, syntheticItem(id));
+        }
+        for (long id = 1; id <= entries; id++) {
+            Assert.assertEquals(cache.get(id), syntheticItem(id), "Item " + id + " should survive rehashing. RequestId: " + requestId);
+        }
+        Assert.assertTrue(cache.getIndexBytes() > initialIndexBytes, "Index should grow with the entries. RequestId: " + requestId);
+        logger.info("Index grew from {} to {} bytes: {}, RequestId: {}", initialIndexBytes, cache.getIndexBytes(), cache, requestId);
+    }
+
+    private static HackerNewsItem syntheticItem(long id) {
+        HackerNewsItem item = new HackerNewsItem();
+        item.setId(id);
+        item.setType("comment");
+        item.setBy("user" + id % 97);
+        item.setTime(1_700_000_000L + id);
+        item.setText("Comment " + id + " " + "x".repeat((int) (id % 200)));
+        item.setParent(id / 10);
+        item.setKids(List.of(id * 10 + 1, id * 10 + 2));
+        return item;
+    }
+}
@@ -14,12 +14,14 @@ import java.util.List;
 
 public class PaginationApiTest {
     private static final Logger logger = LoggerFactory.getLogger(PaginationApiTest.class);
+    private SharedTestData data;
     private HackerNewsClient client;
 
     @BeforeClass
     public void setup() {
         logger.info("Setting up Pagination API test suite");
-        client = new HackerNewsClient();
+        data = SharedTestData.get();
+        client = data.getClient();
     }
 
     @DataProvider(name = "pageSizeProvider")
@@ -41,7 +43,7 @@ public class PaginationApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testFirstPageWithDifferentSizes - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -84,7 +86,7 @@ public class PaginationApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testPaginationByPageNumber - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -124,7 +126,7 @@ public class PaginationApiTest {
         logger.info("Starting testPaginationWithStoryDetails - Page {}, Size {}, RequestId: {}",
                 pageNumber, pageSize, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -137,7 +139,7 @@ public class PaginationApiTest {
         int successCount = 0;
 
         for (Long storyId : page) {
-            ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
             if (itemResponse.isSuccess() && itemResponse.getBody() != null) {
                 fetchedStories.add(itemResponse.getBody());
                 successCount++;
@@ -168,7 +170,7 @@ public class PaginationApiTest {
         int pageSize = 50;
         logger.info("Starting testLastPageEdgeCase, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -201,7 +203,7 @@ public class PaginationApiTest {
         logger.info("Starting testPaginationBeyondAvailableStories - Page {}, RequestId: {}",
                 pageNumber, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -239,7 +241,7 @@ public class PaginationApiTest {
         logger.info("Starting testOffsetLimitPagination - {}, Offset: {}, Limit: {}, RequestId: {}",
                 description, offset, limit, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -269,7 +271,7 @@ public class PaginationApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testTotalStoryCount, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -294,7 +296,7 @@ public class PaginationApiTest {
         int pageSize = 30;
         logger.info("Starting testIterateAllPages with page size {}, RequestId: {}", pageSize, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -327,7 +329,7 @@ public class PaginationApiTest {
         int pageSize = 5;
         logger.info("Starting testConcurrentPageFetches, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -343,14 +345,14 @@ public class PaginationApiTest {
         int page3SuccessCount = 0;
 
         for (Long storyId : page1) {
-            ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
             if (itemResponse.isSuccess() && itemResponse.getBody() != null) {
                 page1SuccessCount++;
             }
         }
 
         for (Long storyId : page3) {
-            ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
             if (itemResponse.isSuccess() && itemResponse.getBody() != null) {
                 page3SuccessCount++;
             }
@@ -367,6 +369,45 @@ public class PaginationApiTest {
         softAssert.assertAll();
     }
 
+    @Test(description = "Test bulk fetching a page of stories with adaptive concurrency",
+            priority = 9,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testBulkPageFetch() {
+        String requestId = HackerNewsClient.generateRequestId();
+        int pageSize = 20;
+        logger.info("Starting testBulkPageFetch, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
+        Assert.assertTrue(topStoriesResponse.isSuccess(),
+                "Failed to fetch top stories. RequestId: " + requestId);
+
+        List<Long> page = topStoriesResponse.getBody().subList(0,
+                Math.min(pageSize, topStoriesResponse.getBody().size()));
+        List<ApiResponse<HackerNewsItem>> responses = client.getItems(page, requestId);
+
+        Assert.assertEquals(responses.size(), page.size(),
+                "Bulk fetch should return one response per ID. RequestId: " + requestId);
+
+        SoftAssert softAssert = new SoftAssert();
+        int successCount = 0;
+        for (int i = 0; i < page.size(); i++) {
+            ApiResponse<HackerNewsItem> itemResponse = responses.get(i);
+            if (itemResponse.isSuccess() && itemResponse.getBody() != null) {
+                successCount++;
+                softAssert.assertEquals(itemResponse.getBody().getId(), page.get(i),
+                        "Responses should keep the order of the requested IDs. RequestId: " + requestId);
+            }
+        }
+        softAssert.assertTrue(successCount >= (page.size() * 0.8),
+                "At least 80% of stories should be fetched successfully. RequestId: " + requestId);
+        softAssert.assertTrue(client.getMetrics().getConcurrencyLimit() > 0,
+                "Concurrency limit should be reported. RequestId: " + requestId);
+
+        logger.info("Bulk page fetch - {}/{} stories, concurrency limit: {}, RequestId: {}",
+                successCount, page.size(), client.getMetrics().getConcurrencyLimit(), requestId);
+        softAssert.assertAll();
+    }
+
     @Test(description = "Test zero-based vs one-based pagination indexing",
             priority = 10,
             retryAnalyzer = RetryAnalyzer.class)
@@ -375,7 +416,7 @@ public class PaginationApiTest {
         int pageSize = 10;
         logger.info("Starting testPaginationIndexing, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
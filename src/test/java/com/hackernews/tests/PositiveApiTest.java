@@ -1,24 +1,39 @@
 package com.hackernews.tests;
 
 import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.HackerNewsClientConfig;
+import com.hackernews.client.RequestContext;
+import com.hackernews.client.StalenessPolicy;
+import com.hackernews.client.StreamSubscription;
 import com.hackernews.model.ApiResponse;
+import com.hackernews.model.FanOutResult;
 import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.HackerNewsPoll;
+import com.hackernews.model.ItemField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.*;
 import org.testng.asserts.SoftAssert;
 
+import java.time.Duration;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class PositiveApiTest {
     private static final Logger logger = LoggerFactory.getLogger(PositiveApiTest.class);
+    private SharedTestData data;
     private HackerNewsClient client;
 
     @BeforeClass
     public void setup() {
         logger.info("Setting up Positive API test suite");
-        client = new HackerNewsClient();
+        data = SharedTestData.get();
+        client = data.getClient();
     }
 
     @Test(description = "Test retrieving top stories from HackerNews API",
@@ -70,7 +85,7 @@ public class PositiveApiTest {
         logger.info("Starting testGetStoryDetailsByIndex for {} (index: {}), RequestId: {}",
                 description, index, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
         Assert.assertTrue(topStoriesResponse.getBody().size() > index,
@@ -79,7 +94,7 @@ public class PositiveApiTest {
         Long storyId = topStoriesResponse.getBody().get(index);
         logger.info("{} ID: {}, RequestId: {}", description, storyId, requestId);
 
-        ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+        ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
 
         SoftAssert softAssert = new SoftAssert();
         softAssert.assertTrue(itemResponse.isSuccess(),
@@ -123,7 +138,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testGetItemByType for {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -133,20 +148,20 @@ public class PositiveApiTest {
         if (itemType.equals("story")) {
             // Get first story
             itemId = topStoriesResponse.getBody().get(0);
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(itemId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(itemId);
             if (storyResponse.isSuccess()) {
                 foundItem = storyResponse.getBody();
             }
         } else if (itemType.equals("comment")) {
             // Find a story with comments and get first comment
             for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(10, topStoriesResponse.getBody().size()))) {
-                ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+                ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
                 if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                     HackerNewsItem story = storyResponse.getBody();
                     if (story.getKids() != null && !story.getKids().isEmpty()) {
                         itemId = story.getKids().get(0);
-                        ApiResponse<HackerNewsItem> commentResponse = client.getItem(itemId, requestId);
+                        ApiResponse<HackerNewsItem> commentResponse = data.getItem(itemId);
                         if (commentResponse.isSuccess()) {
                             foundItem = commentResponse.getBody();
                             break;
@@ -219,7 +234,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testMultipleStoryFetching - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -228,7 +243,7 @@ public class PositiveApiTest {
         int successCount = 0;
 
         for (Long storyId : storyIds) {
-            ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
             if (itemResponse.isSuccess() && itemResponse.getBody() != null) {
                 successCount++;
             }
@@ -257,14 +272,14 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoryRequiredFields - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
         Assert.assertTrue(topStoriesResponse.getBody().size() > index,
                 "Not enough stories for index " + index + ". RequestId: " + requestId);
 
         Long storyId = topStoriesResponse.getBody().get(index);
-        ApiResponse<HackerNewsItem> itemResponse = client.getItem(storyId, requestId);
+        ApiResponse<HackerNewsItem> itemResponse = data.getItem(storyId);
 
         Assert.assertTrue(itemResponse.isSuccess(),
                 "Failed to fetch story. RequestId: " + requestId);
@@ -302,7 +317,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoriesContainValidIds - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> response = client.getTopStories(requestId);
+        ApiResponse<List<Long>> response = data.getTopStories();
         Assert.assertTrue(response.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -360,7 +375,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testEdgeCaseStoryWithManyComments, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -368,7 +383,7 @@ public class PositiveApiTest {
         int maxDescendants = 0;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -399,7 +414,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testEdgeCaseStoryWithAndWithoutURL, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -407,7 +422,7 @@ public class PositiveApiTest {
         HackerNewsItem storyWithoutURL = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(30, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -451,21 +466,21 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testEdgeCaseNestedComments, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
         HackerNewsItem commentWithReplies = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(10, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
 
                 if (story.getKids() != null && !story.getKids().isEmpty()) {
                     for (Long commentId : story.getKids().subList(0, Math.min(3, story.getKids().size()))) {
-                        ApiResponse<HackerNewsItem> commentResponse = client.getItem(commentId, requestId);
+                        ApiResponse<HackerNewsItem> commentResponse = data.getItem(commentId);
 
                         if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                             HackerNewsItem comment = commentResponse.getBody();
@@ -507,7 +522,7 @@ public class PositiveApiTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testEdgeCaseStoryScores, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -515,7 +530,7 @@ public class PositiveApiTest {
         int storiesChecked = 0;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(10, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -568,6 +583,212 @@ public class PositiveApiTest {
                 firstResponse.getBody().size(), secondResponse.getBody().size(), requestId);
     }
 
+    @Test(description = "Fetch the first N stories that succeed and abandon the rest",
+            priority = 14,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testFirstNStoryFetching() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        logger.info("Starting testFirstNStoryFetching, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
+        Assert.assertTrue(topStoriesResponse.isSuccess(),
+                "Failed to fetch top stories. RequestId: " + requestId);
+
+        List<Long> storyIds = topStoriesResponse.getBody().subList(0,
+                Math.min(40, topStoriesResponse.getBody().size()));
+        FanOutResult<HackerNewsItem> result = client.getFirstItems(storyIds, 10, context);
+
+        Assert.assertTrue(result.isQuorumReached(),
+                "Expected 10 successful stories, got " + result.getSuccesses().size() + ". RequestId: " + requestId);
+        Assert.assertEquals(result.getSuccesses().size(), 10,
+                "Fan-out should stop at the requested count. RequestId: " + requestId);
+        Assert.assertEquals(result.getSuccesses().size() + result.getFailures().size() + result.getCancelled(),
+                storyIds.size(), "Every story ID should be accounted for. RequestId: " + requestId);
+
+        logger.info("Fetched first {} stories in {}ms, abandoned {}, RequestId: {}",
+                result.getSuccesses().size(), result.getElapsedMillis(), result.getCancelled(), requestId);
+    }
+
+    @Test(description = "Test hydrating a poll with its options and refreshing the scores",
+            priority = 15,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testPollHydration() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        Long pollId = 126809L;
+        logger.info("Starting testPollHydration - ID: {}, RequestId: {}", pollId, requestId);
+
+        ApiResponse<HackerNewsPoll> response = client.getPoll(pollId, context);
+
+        Assert.assertTrue(response.isSuccess(),
+                "Poll and all options should be fetched: " + response.getErrorMessage() + ". RequestId: " + requestId);
+        HackerNewsPoll poll = response.getBody();
+        Assert.assertEquals(poll.getPoll().getType(), "poll", "Item should be a poll. RequestId: " + requestId);
+        Assert.assertEquals(poll.getOptions().size(), poll.getPoll().getParts().size(),
+                "Every part should be hydrated. RequestId: " + requestId);
+
+        SoftAssert softAssert = new SoftAssert();
+        for (int i = 0; i < poll.getOptions().size(); i++) {
+            HackerNewsItem option = poll.getOptions().get(i);
+            softAssert.assertEquals(option.getId(), poll.getPoll().getParts().get(i),
+                    "Options should keep the order of parts. RequestId: " + requestId);
+            softAssert.assertEquals(option.getType(), "pollopt", "Part should be a pollopt. RequestId: " + requestId);
+            softAssert.assertEquals(option.getPoll(), pollId, "Option should point at its poll. RequestId: " + requestId);
+        }
+
+        ApiResponse<HackerNewsPoll> refreshed = client.refreshPoll(poll, context);
+        softAssert.assertTrue(refreshed.isSuccess(), "Refresh should succeed. RequestId: " + requestId);
+        softAssert.assertEquals(refreshed.getBody().getOptions().size(), poll.getOptions().size(),
+                "Refresh should return the same options. RequestId: " + requestId);
+
+        logger.info("Poll {} has {} options and {} votes (refreshed: {}), RequestId: {}",
+                pollId, poll.getOptions().size(), poll.getTotalVotes(), refreshed.getBody().getTotalVotes(), requestId);
+        softAssert.assertAll();
+    }
+
+    @Test(description = "Test that the top stories stream delivers the current list on connect",
+            priority = 16,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testTopStoriesStream() throws InterruptedException {
+        logger.info("Starting testTopStoriesStream");
+        CountDownLatch firstSnapshot = new CountDownLatch(1);
+        AtomicReference<List<Long>> latest = new AtomicReference<>();
+
+        try (StreamSubscription<List<Long>> subscription = client.subscribeTopStories(stories -> {
+            latest.set(stories);
+            firstSnapshot.countDown();
+        })) {
+            Assert.assertTrue(firstSnapshot.await(10, TimeUnit.SECONDS),
+                    "Stream should deliver the top stories within 10s: " + subscription);
+            Assert.assertNotNull(latest.get(), "Streamed list should not be null");
+            Assert.assertFalse(latest.get().isEmpty(), "Streamed list should not be empty");
+            logger.info("Streamed {} top stories: {}", latest.get().size(), subscription);
+        }
+    }
+
+    @Test(description = "Test that an expired cached item is served stale while it is refreshed",
+            priority = 17,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testStaleWhileRevalidate() throws InterruptedException {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        Long storyId = data.getTopStories().getBody().get(0);
+        logger.info("Starting testStaleWhileRevalidate - ID: {}, RequestId: {}", storyId, requestId);
+
+        HackerNewsClientConfig config = HackerNewsClientConfig.builder()
+                .itemCacheTtl(Duration.ofMillis(50))
+                .stalenessPolicy(StalenessPolicy.defaults())
+                .build();
+        try (HackerNewsClient cachingClient = new HackerNewsClient(config)) {
+            ApiResponse<HackerNewsItem> fetched = cachingClient.getItem(storyId, context);
+            Assert.assertTrue(fetched.isSuccess(), "First fetch should succeed. RequestId: " + requestId);
+            Assert.assertFalse(fetched.isStale(), "Fetched item should not be stale. RequestId: " + requestId);
+
+            Thread.sleep(100);
+            ApiResponse<HackerNewsItem> stale = cachingClient.getItem(storyId, context);
+
+            Assert.assertTrue(stale.isSuccess(), "Expired item should still be served. RequestId: " + requestId);
+            Assert.assertTrue(stale.isStale(), "Expired item should be marked stale. RequestId: " + requestId);
+            Assert.assertTrue(stale.getAgeMillis() >= 50, "Age should cover the TTL. RequestId: " + requestId);
+            Assert.assertEquals(stale.getBody().getId(), storyId, "Stale item should be the same item. RequestId: " + requestId);
+            Assert.assertEquals(cachingClient.getMetrics().getStaleRevalidations(), 1,
+                    "Serving stale should start one background refresh. RequestId: " + requestId);
+            logger.info("Served item {} stale at {}ms old, RequestId: {}", storyId, stale.getAgeMillis(), requestId);
+        }
+    }
+
+    @Test(description = "Test that items cached off heap read back unchanged",
+            priority = 18,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testOffHeapItemCache() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        Long pollId = 126809L;
+        logger.info("Starting testOffHeapItemCache - ID: {}, RequestId: {}", pollId, requestId);
+
+        HackerNewsClientConfig config = HackerNewsClientConfig.builder()
+                .offHeapItemCacheBytes(4 * 1024 * 1024)
+                .offHeapSegmentBytes(1024 * 1024)
+                .build();
+        try (HackerNewsClient offHeapClient = new HackerNewsClient(config)) {
+            ApiResponse<HackerNewsPoll> fetched = offHeapClient.getPoll(pollId, context);
+            Assert.assertTrue(fetched.isSuccess(), "Poll should be fetched: " + fetched.getErrorMessage()
+                    + ". RequestId: " + requestId);
+
+            ApiResponse<HackerNewsPoll> cached = offHeapClient.getPoll(pollId, context);
+
+            Assert.assertTrue(cached.isSuccess(), "Cached poll should be served. RequestId: " + requestId);
+            Assert.assertEquals(cached.getBody().getPoll(), fetched.getBody().getPoll(),
+                    "Poll should read back unchanged from off-heap memory. RequestId: " + requestId);
+            Assert.assertEquals(cached.getBody().getOptions(), fetched.getBody().getOptions(),
+                    "Options should read back unchanged from off-heap memory. RequestId: " + requestId);
+            Assert.assertTrue(offHeapClient.getItemCache().getHits() >= 1 + fetched.getBody().getOptions().size(),
+                    "Second read should hit the cache. RequestId: " + requestId);
+            logger.info("Off-heap cache after two reads: {}, RequestId: {}", offHeapClient.getItemCache(), requestId);
+        }
+    }
+
+    @Test(description = "Test that the streaming decoder matches data binding for stories and ID lists",
+            priority = 19,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testStreamingDecoderMatchesBinding() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        logger.info("Starting testStreamingDecoderMatchesBinding, RequestId: {}", requestId);
+
+        HackerNewsClientConfig bindingConfig = HackerNewsClientConfig.builder().streamingDecoder(false).build();
+        try (HackerNewsClient bindingClient = new HackerNewsClient(bindingConfig)) {
+            ApiResponse<List<Long>> streamed = client.getTopStories(context);
+            ApiResponse<List<Long>> bound = bindingClient.getTopStories(context);
+            Assert.assertTrue(streamed.isSuccess() && bound.isSuccess(), "Both list fetches should succeed. RequestId: " + requestId);
+            Assert.assertFalse(streamed.getBody().isEmpty(), "Top stories should not be empty. RequestId: " + requestId);
+
+            Long storyId = streamed.getBody().get(0);
+            HackerNewsItem streamedStory = client.getItem(storyId, context).getBody();
+            HackerNewsItem boundStory = bindingClient.getItem(storyId, context).getBody();
+            Assert.assertNotNull(streamedStory, "Story should decode. RequestId: " + requestId);
+            // Scores and comment counts move between the two fetches, so compare the stable fields
+            Assert.assertEquals(streamedStory.getId(), boundStory.getId(), "IDs should match. RequestId: " + requestId);
+            Assert.assertEquals(streamedStory.getType(), boundStory.getType(), "Types should match. RequestId: " + requestId);
+            Assert.assertEquals(streamedStory.getBy(), boundStory.getBy(), "Authors should match. RequestId: " + requestId);
+            Assert.assertEquals(streamedStory.getTime(), boundStory.getTime(), "Times should match. RequestId: " + requestId);
+            Assert.assertEquals(streamedStory.getTitle(), boundStory.getTitle(), "Titles should match. RequestId: " + requestId);
+            Assert.assertEquals(streamedStory.getUrl(), boundStory.getUrl(), "URLs should match. RequestId: " + requestId);
+        }
+        logger.info("Streaming decoder matched data binding, RequestId: {}", requestId);
+    }
+
+    @Test(description = "Test that a field projection decodes only the requested fields",
+            priority = 20,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testFieldProjection() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        logger.info("Starting testFieldProjection, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStories = client.getTopStories(context);
+        Assert.assertTrue(topStories.isSuccess(), "Top stories should be fetched. RequestId: " + requestId);
+        List<Long> storyIds = topStories.getBody().subList(0, Math.min(3, topStories.getBody().size()));
+
+        Set<ItemField> ranking = EnumSet.of(ItemField.SCORE, ItemField.DESCENDANTS, ItemField.KIDS);
+        List<ApiResponse<HackerNewsItem>> responses = client.getItems(storyIds, ranking, context);
+        Assert.assertEquals(responses.size(), storyIds.size(), "One response per ID expected. RequestId: " + requestId);
+        for (int i = 0; i < storyIds.size(); i++) {
+            HackerNewsItem story = responses.get(i).getBody();
+            Assert.assertNotNull(story, "Story should decode. RequestId: " + requestId);
+            Assert.assertEquals(story.getId(), storyIds.get(i), "ID is always decoded. RequestId: " + requestId);
+            Assert.assertNotNull(story.getScore(), "Score was requested. RequestId: " + requestId);
+            Assert.assertNull(story.getTitle(), "Title was not requested. RequestId: " + requestId);
+            Assert.assertNull(story.getText(), "Text was not requested. RequestId: " + requestId);
+            Assert.assertNull(story.getBy(), "Author was not requested. RequestId: " + requestId);
+        }
+
+        HackerNewsItem full = client.getItem(storyIds.get(0), context).getBody();
+        Assert.assertNotNull(full.getTitle(), "A full fetch should not be served a projected item. RequestId: " + requestId);
+        logger.info("Projected {} stories to {}, RequestId: {}", storyIds.size(), ranking, requestId);
+    }
+
     @AfterClass
     public void teardown() {
         logger.info("Positive API test suite completed");
@@ -0,0 +1,121 @@
+package com.hackernews.tests;
+
+import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.HackerNewsClientConfig;
+import com.hackernews.model.ApiResponse;
+import com.hackernews.model.HackerNewsItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Top stories and hydrated items shared by all test classes, so tests stop refetching the
+ * same list and the same first stories. The snapshot is loaded once per suite, with stories
+ * and their first comments fetched in parallel; any other item is fetched on first use.
+ * Only successful responses are kept, so a failed load is retried by the next caller. The
+ * client's request journal is appended to logs/hackernews-request-journal.log when it closes.
+ */
+public final class SharedTestData {
+    private static final Logger logger = LoggerFactory.getLogger(SharedTestData.class);
+    static final int PRELOADED_STORIES = 50;
+    static final int STORIES_WITH_PRELOADED_COMMENTS = 20;
+    static final int PRELOADED_COMMENTS_PER_STORY = 3;
+
+    private static SharedTestData instance;
+
+    private final HackerNewsClient client = new HackerNewsClient(HackerNewsClientConfig.builder()
+            .journalFile(Paths.get("logs/hackernews-request-journal.log"))
+            .build());
+    private final ConcurrentMap<Long, ApiResponse<HackerNewsItem>> items = new ConcurrentHashMap<>();
+    private volatile ApiResponse<List<Long>> topStories;
+
+    private SharedTestData() {
+    }
+
+    public static synchronized SharedTestData get() {
+        if (instance == null) {
+            instance = new SharedTestData();
+        }
+        return instance;
+    }
+
+    static synchronized void release() {
+        if (instance != null) {
+            logger.info("Shared test data served {} cached items; suite sent {} HTTP requests",
+                    instance.items.size(), instance.client.getMetrics().getRequestsSent());
+            instance.client.close();
+            instance = null;
+        }
+    }
+
+    public HackerNewsClient getClient() {
+        return client;
+    }
+
+    public ApiResponse<List<Long>> getTopStories() {
+        ApiResponse<List<Long>> snapshot = topStories;
+        if (snapshot != null && snapshot.isSuccess()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (topStories == null || !topStories.isSuccess()) {
+                load();
+            }
+            return topStories;
+        }
+    }
+
+    public ApiResponse<HackerNewsItem> getItem(Long itemId) {
+        ApiResponse<HackerNewsItem> cached = items.get(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        ApiResponse<HackerNewsItem> response = client.getItem(itemId, HackerNewsClient.generateRequestId());
+        if (response.isSuccess()) {
+            items.putIfAbsent(itemId, response);
+        }
+        return response;
+    }
+
+    private void load() {
+        String requestId = HackerNewsClient.generateRequestId();
+        long start = System.currentTimeMillis();
+        ApiResponse<List<Long>> response = client.getTopStories(requestId);
+        topStories = response;
+        if (!response.isSuccess() || response.getBody() == null) {
+            logger.warn("Could not load top stories for shared test data: {}, RequestId: {}",
+                    response.getErrorMessage(), requestId);
+            return;
+        }
+
+        List<Long> storyIds = response.getBody().subList(0, Math.min(PRELOADED_STORIES, response.getBody().size()));
+        List<ApiResponse<HackerNewsItem>> stories = hydrate(storyIds, requestId);
+
+        List<Long> commentIds = new ArrayList<>();
+        for (ApiResponse<HackerNewsItem> story : stories.subList(0, Math.min(STORIES_WITH_PRELOADED_COMMENTS, stories.size()))) {
+            List<Long> kids = story.isSuccess() && story.getBody() != null ? story.getBody().getKids() : null;
+            if (kids != null) {
+                commentIds.addAll(kids.subList(0, Math.min(PRELOADED_COMMENTS_PER_STORY, kids.size())));
+            }
+        }
+        hydrate(commentIds, requestId);
+
+        logger.info("Loaded shared test data - {} top stories, {} items in {}ms, RequestId: {}",
+                response.getBody().size(), items.size(), System.currentTimeMillis() - start, requestId);
+    }
+
+    private List<ApiResponse<HackerNewsItem>> hydrate(List<Long> itemIds, String requestId) {
+        List<ApiResponse<HackerNewsItem>> responses = client.getItems(itemIds, requestId);
+        for (int i = 0; i < itemIds.size(); i++) {
+            if (responses.get(i).isSuccess()) {
+                items.put(itemIds.get(i), responses.get(i));
+            }
+        }
+        return responses;
+    }
+}
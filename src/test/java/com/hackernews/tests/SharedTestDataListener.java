@@ -0,0 +1,18 @@
+package com.hackernews.tests;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+// Loads the shared snapshot before the test classes start in parallel and closes its client afterwards
+public class SharedTestDataListener implements ISuiteListener {
+
+    @Override
+    public void onStart(ISuite suite) {
+        SharedTestData.get().getTopStories();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        SharedTestData.release();
+    }
+}
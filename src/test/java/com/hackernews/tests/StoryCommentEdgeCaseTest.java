@@ -1,24 +1,35 @@
 package com.hackernews.tests;
 
+import com.hackernews.client.CommentTreePolicy;
 import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.RequestContext;
 import com.hackernews.model.ApiResponse;
+import com.hackernews.model.CommentNode;
+import com.hackernews.model.CommentTree;
 import com.hackernews.model.HackerNewsItem;
+import com.hackernews.model.HackerNewsUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.*;
 import org.testng.asserts.SoftAssert;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class StoryCommentEdgeCaseTest {
     private static final Logger logger = LoggerFactory.getLogger(StoryCommentEdgeCaseTest.class);
-    private HackerNewsClient client;
+    private SharedTestData data;
 
     @BeforeClass
     public void setup() {
         logger.info("Setting up Story-Comment Edge Case test suite");
-        client = new HackerNewsClient();
+        data = SharedTestData.get();
     }
 
     @Test(description = "Test story with no comments (kids field is null)",
@@ -28,14 +39,14 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoryWithNoComments, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
         HackerNewsItem storyWithNoComments = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(50, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -66,14 +77,14 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoryWithEmptyCommentsList, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
         HackerNewsItem storyWithEmptyComments = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(50, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -102,7 +113,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoryWithSingleComment, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -110,7 +121,7 @@ public class StoryCommentEdgeCaseTest {
         Long commentId = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(30, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -125,7 +136,7 @@ public class StoryCommentEdgeCaseTest {
         }
 
         if (storyWithOneComment != null && commentId != null) {
-            ApiResponse<HackerNewsItem> commentResponse = client.getItem(commentId, requestId);
+            ApiResponse<HackerNewsItem> commentResponse = data.getItem(commentId);
 
             Assert.assertTrue(commentResponse.isSuccess(),
                     "Should fetch comment successfully. RequestId: " + requestId);
@@ -151,7 +162,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testStoryWithDeletedFirstComment, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -159,14 +170,14 @@ public class StoryCommentEdgeCaseTest {
         Long deletedCommentId = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(50, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
 
                 if ("story".equals(story.getType()) && story.getKids() != null && !story.getKids().isEmpty()) {
                     Long firstCommentId = story.getKids().get(0);
-                    ApiResponse<HackerNewsItem> commentResponse = client.getItem(firstCommentId, requestId);
+                    ApiResponse<HackerNewsItem> commentResponse = data.getItem(firstCommentId);
 
                     if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                         HackerNewsItem comment = commentResponse.getBody();
@@ -198,7 +209,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testFirstCommentWithReplies, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -206,14 +217,14 @@ public class StoryCommentEdgeCaseTest {
         HackerNewsItem parentStory = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
 
                 if ("story".equals(story.getType()) && story.getKids() != null && !story.getKids().isEmpty()) {
                     Long firstCommentId = story.getKids().get(0);
-                    ApiResponse<HackerNewsItem> commentResponse = client.getItem(firstCommentId, requestId);
+                    ApiResponse<HackerNewsItem> commentResponse = data.getItem(firstCommentId);
 
                     if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                         HackerNewsItem comment = commentResponse.getBody();
@@ -256,7 +267,7 @@ public class StoryCommentEdgeCaseTest {
         int minComments = 50;
         logger.info("Starting testStoryWithManyComments (min: {}), RequestId: {}", minComments, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -264,7 +275,7 @@ public class StoryCommentEdgeCaseTest {
         Long firstCommentId = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -280,7 +291,7 @@ public class StoryCommentEdgeCaseTest {
         }
 
         if (storyWithManyComments != null && firstCommentId != null) {
-            ApiResponse<HackerNewsItem> commentResponse = client.getItem(firstCommentId, requestId);
+            ApiResponse<HackerNewsItem> commentResponse = data.getItem(firstCommentId);
 
             SoftAssert softAssert = new SoftAssert();
             softAssert.assertTrue(commentResponse.isSuccess(),
@@ -321,7 +332,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testCommentAtDifferentIndices - {}, RequestId: {}", description, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -329,7 +340,7 @@ public class StoryCommentEdgeCaseTest {
         Long commentId = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem tempStory = storyResponse.getBody();
@@ -345,7 +356,7 @@ public class StoryCommentEdgeCaseTest {
         }
 
         if (story != null && commentId != null) {
-            ApiResponse<HackerNewsItem> commentResponse = client.getItem(commentId, requestId);
+            ApiResponse<HackerNewsItem> commentResponse = data.getItem(commentId);
 
             Assert.assertTrue(commentResponse.isSuccess(),
                     "Should fetch comment successfully. RequestId: " + requestId);
@@ -370,7 +381,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testCommentWithoutText, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -378,14 +389,14 @@ public class StoryCommentEdgeCaseTest {
         HackerNewsItem parentStory = null;
 
         for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(30, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
 
                 if ("story".equals(story.getType()) && story.getKids() != null && !story.getKids().isEmpty()) {
                     for (Long commentId : story.getKids().subList(0, Math.min(5, story.getKids().size()))) {
-                        ApiResponse<HackerNewsItem> commentResponse = client.getItem(commentId, requestId);
+                        ApiResponse<HackerNewsItem> commentResponse = data.getItem(commentId);
 
                         if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                             HackerNewsItem comment = commentResponse.getBody();
@@ -425,7 +436,7 @@ public class StoryCommentEdgeCaseTest {
         int storiesToCheck = 10;
         logger.info("Starting testAllFirstCommentsOfTopStories (top {}), RequestId: {}", storiesToCheck, requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -434,7 +445,7 @@ public class StoryCommentEdgeCaseTest {
         int successfulCommentFetches = 0;
 
         for (Long storyId : topStories) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(storyId, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem story = storyResponse.getBody();
@@ -443,7 +454,7 @@ public class StoryCommentEdgeCaseTest {
                     storiesWithComments++;
                     Long firstCommentId = story.getKids().get(0);
 
-                    ApiResponse<HackerNewsItem> commentResponse = client.getItem(firstCommentId, requestId);
+                    ApiResponse<HackerNewsItem> commentResponse = data.getItem(firstCommentId);
 
                     if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                         successfulCommentFetches++;
@@ -474,7 +485,7 @@ public class StoryCommentEdgeCaseTest {
         String requestId = HackerNewsClient.generateRequestId();
         logger.info("Starting testCommentParentRelationship, RequestId: {}", requestId);
 
-        ApiResponse<List<Long>> topStoriesResponse = client.getTopStories(requestId);
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
         Assert.assertTrue(topStoriesResponse.isSuccess(),
                 "Failed to fetch top stories. RequestId: " + requestId);
 
@@ -482,7 +493,7 @@ public class StoryCommentEdgeCaseTest {
         Long storyId = null;
 
         for (Long id : topStoriesResponse.getBody().subList(0, Math.min(10, topStoriesResponse.getBody().size()))) {
-            ApiResponse<HackerNewsItem> storyResponse = client.getItem(id, requestId);
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(id);
 
             if (storyResponse.isSuccess() && storyResponse.getBody() != null) {
                 HackerNewsItem item = storyResponse.getBody();
@@ -502,7 +513,7 @@ public class StoryCommentEdgeCaseTest {
 
             for (int i = 0; i < Math.min(5, commentIds.size()); i++) {
                 Long commentId = commentIds.get(i);
-                ApiResponse<HackerNewsItem> commentResponse = client.getItem(commentId, requestId);
+                ApiResponse<HackerNewsItem> commentResponse = data.getItem(commentId);
 
                 if (commentResponse.isSuccess() && commentResponse.getBody() != null) {
                     HackerNewsItem comment = commentResponse.getBody();
@@ -534,6 +545,186 @@ public class StoryCommentEdgeCaseTest {
         }
     }
 
+    @Test(description = "Test budgeted comment tree fetch keeps to top-K, depth and item limits",
+            priority = 11,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testBudgetedCommentTree() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        CommentTreePolicy policy = CommentTreePolicy.builder().kidsPerLevel(3).maxDepth(2).maxItems(10).build();
+        logger.info("Starting testBudgetedCommentTree, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
+        Assert.assertTrue(topStoriesResponse.isSuccess(),
+                "Failed to fetch top stories. RequestId: " + requestId);
+
+        Long storyId = null;
+        for (Long id : topStoriesResponse.getBody().subList(0, Math.min(20, topStoriesResponse.getBody().size()))) {
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(id);
+            if (storyResponse.isSuccess() && storyResponse.getBody() != null
+                    && storyResponse.getBody().getKids() != null && storyResponse.getBody().getKids().size() > 3) {
+                storyId = id;
+                break;
+            }
+        }
+        if (storyId == null) {
+            logger.info("No story with more than 3 comments found in top 20, RequestId: {}", requestId);
+            return;
+        }
+
+        CommentTree tree = data.getClient().getCommentTree(storyId, policy, context);
+
+        Assert.assertNotNull(tree.getRoot(), "Root story should be fetched. RequestId: " + requestId);
+        Assert.assertTrue(tree.isTruncated(),
+                "A story with more than 3 comments should be truncated at 3 per level. RequestId: " + requestId);
+
+        SoftAssert softAssert = new SoftAssert();
+        softAssert.assertTrue(tree.getFetchedComments() <= policy.getMaxItems(),
+                "Fetched comments should stay within budget. RequestId: " + requestId);
+        Deque<CommentNode> pending = new ArrayDeque<>(List.of(tree.getRoot()));
+        int nodes = 0;
+        while (!pending.isEmpty()) {
+            CommentNode node = pending.pop();
+            List<Long> kids = node.getItem().getKids();
+            softAssert.assertTrue(node.getDepth() <= policy.getMaxDepth(),
+                    "Node " + node.getItem().getId() + " is deeper than allowed. RequestId: " + requestId);
+            softAssert.assertTrue(node.getChildren().size() <= policy.getKidsPerLevel(),
+                    "Node " + node.getItem().getId() + " expanded too many kids. RequestId: " + requestId);
+            for (int i = 0; i < node.getChildren().size(); i++) {
+                CommentNode child = node.getChildren().get(i);
+                softAssert.assertTrue(kids.indexOf(child.getItem().getId()) < policy.getKidsPerLevel(),
+                        "Only the first kids in display order should be expanded. RequestId: " + requestId);
+                softAssert.assertEquals(child.getItem().getParent(), node.getItem().getId(),
+                        "Child should point at its parent. RequestId: " + requestId);
+                pending.push(child);
+            }
+            int expected = kids == null ? 0 : kids.size();
+            softAssert.assertTrue(node.getChildren().size() + node.getUnexpandedKids().size() <= expected,
+                    "Every kid is either expanded, unexpanded or missing. RequestId: " + requestId);
+            nodes++;
+        }
+        softAssert.assertEquals(nodes - 1, tree.getFetchedComments(),
+                "Fetched count should match the nodes in the tree. RequestId: " + requestId);
+
+        logger.info("Comment tree for story {} - fetched {}, unexpanded subtrees {}, {}ms, RequestId: {}",
+                storyId, tree.getFetchedComments(), tree.getUnexpandedSubtrees(), tree.getElapsedMillis(), requestId);
+        softAssert.assertAll();
+    }
+
+    @Test(description = "Test resolving a comment's ancestor chain up to its story",
+            priority = 12,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testCommentAncestorChain() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        logger.info("Starting testCommentAncestorChain, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
+        Assert.assertTrue(topStoriesResponse.isSuccess(),
+                "Failed to fetch top stories. RequestId: " + requestId);
+
+        List<Long> commentIds = new ArrayList<>();
+        for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(10, topStoriesResponse.getBody().size()))) {
+            ApiResponse<HackerNewsItem> storyResponse = data.getItem(storyId);
+            if (storyResponse.isSuccess() && storyResponse.getBody() != null && storyResponse.getBody().getKids() != null) {
+                commentIds.add(storyResponse.getBody().getKids().get(0));
+            }
+        }
+        if (commentIds.isEmpty()) {
+            logger.info("No comments found in top 10 stories, RequestId: {}", requestId);
+            return;
+        }
+
+        List<ApiResponse<List<HackerNewsItem>>> chains = data.getClient().getAncestors(commentIds, context);
+
+        Assert.assertEquals(chains.size(), commentIds.size(),
+                "One chain should be returned per comment. RequestId: " + requestId);
+        SoftAssert softAssert = new SoftAssert();
+        for (int i = 0; i < chains.size(); i++) {
+            ApiResponse<List<HackerNewsItem>> chain = chains.get(i);
+            if (!chain.isSuccess()) {
+                logger.info("Chain of comment {} could not be resolved: {}, RequestId: {}",
+                        commentIds.get(i), chain.getErrorMessage(), requestId);
+                continue;
+            }
+            List<HackerNewsItem> links = chain.getBody();
+            softAssert.assertEquals(links.get(0).getId(), commentIds.get(i),
+                    "Chain should start at the comment. RequestId: " + requestId);
+            for (int j = 1; j < links.size(); j++) {
+                softAssert.assertEquals(links.get(j - 1).getParent(), links.get(j).getId(),
+                        "Each link should be the previous link's parent. RequestId: " + requestId);
+            }
+            softAssert.assertNull(links.get(links.size() - 1).getParent(),
+                    "Chain should end at a root item. RequestId: " + requestId);
+        }
+
+        ApiResponse<List<HackerNewsItem>> cachedChain = data.getClient().getAncestors(commentIds.get(0), context);
+        softAssert.assertEquals(cachedChain.getBody(), chains.get(0).getBody(),
+                "Resolving the same comment again should give the same chain. RequestId: " + requestId);
+
+        logger.info("Resolved {} ancestor chains, item cache: {}, RequestId: {}",
+                chains.size(), data.getClient().getItemCache(), requestId);
+        softAssert.assertAll();
+    }
+
+    @Test(description = "Test hydrating comment authors with deduplicated, cached user fetches",
+            priority = 13,
+            retryAnalyzer = RetryAnalyzer.class)
+    public void testCommentAuthorHydration() {
+        RequestContext context = RequestContext.create();
+        String requestId = context.getRequestId();
+        logger.info("Starting testCommentAuthorHydration, RequestId: {}", requestId);
+
+        ApiResponse<List<Long>> topStoriesResponse = data.getTopStories();
+        Assert.assertTrue(topStoriesResponse.isSuccess(),
+                "Failed to fetch top stories. RequestId: " + requestId);
+
+        List<HackerNewsItem> items = new ArrayList<>();
+        for (Long storyId : topStoriesResponse.getBody().subList(0, Math.min(5, topStoriesResponse.getBody().size()))) {
+            CommentTree tree = data.getClient().getCommentTree(storyId,
+                    CommentTreePolicy.builder().kidsPerLevel(3).maxDepth(2).maxItems(10).build(), context);
+            Deque<CommentNode> pending = tree.getRoot() == null ? new ArrayDeque<>() : new ArrayDeque<>(List.of(tree.getRoot()));
+            while (!pending.isEmpty()) {
+                CommentNode node = pending.pop();
+                items.add(node.getItem());
+                node.getChildren().forEach(pending::push);
+            }
+        }
+        Set<String> authors = new HashSet<>();
+        for (HackerNewsItem item : items) {
+            if (item.getBy() != null) {
+                authors.add(item.getBy());
+            }
+        }
+        Assert.assertFalse(authors.isEmpty(), "Should find items with authors. RequestId: " + requestId);
+
+        Map<String, ApiResponse<HackerNewsUser>> users = data.getClient().getAuthors(items, context);
+
+        Assert.assertEquals(users.keySet(), authors,
+                "Each distinct author should be fetched exactly once. RequestId: " + requestId);
+        SoftAssert softAssert = new SoftAssert();
+        users.forEach((userId, response) -> {
+            softAssert.assertTrue(response.isSuccess(),
+                    "User " + userId + " should be fetched: " + response.getErrorMessage() + ". RequestId: " + requestId);
+            if (response.getBody() != null) {
+                softAssert.assertEquals(response.getBody().getId(), userId, "User ID should match. RequestId: " + requestId);
+                softAssert.assertNotNull(response.getBody().getCreated(), "User should have a creation time. RequestId: " + requestId);
+            }
+        });
+
+        Map<String, ApiResponse<HackerNewsUser>> again = data.getClient().getAuthors(items, context);
+        for (String userId : authors) {
+            if (users.get(userId).isSuccess()) {
+                softAssert.assertSame(again.get(userId).getBody(), users.get(userId).getBody(),
+                        "Repeat lookup of " + userId + " should come from the user cache. RequestId: " + requestId);
+            }
+        }
+
+        logger.info("Hydrated {} authors of {} items, user cache: {}, RequestId: {}",
+                users.size(), items.size(), data.getClient().getUserCache(), requestId);
+        softAssert.assertAll();
+    }
+
     @AfterClass
     public void teardown() {
         logger.info("Story-Comment Edge Case test suite completed");
@@ -0,0 +1,59 @@
+package com.hackernews.tests;
+
+import com.hackernews.client.HackerNewsClient;
+import com.hackernews.client.HackerNewsClientConfig;
+import com.hackernews.client.StreamPolicy;
+import com.hackernews.client.StreamSubscription;
+import com.hackernews.tools.LocalStubServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event stream behaviour against a {@link LocalStubServer}; no requests reach the live API.
+ */
+public class StreamSubscriptionTest {
+    private static final Logger logger = LoggerFactory.getLogger(StreamSubscriptionTest.class);
+
+    @Test(description = "Test that a stream event that cannot be decoded drops the connection and the subscription reconnects",
+            priority = 1)
+    public void testStreamRecoversFromBadEvent() throws Exception {
+        String requestId = HackerNewsClient.generateRequestId();
+        logger.info("Starting testStreamRecoversFromBadEvent, RequestId: {}", requestId);
+
+        StreamPolicy policy = StreamPolicy.builder()
+                .initialReconnectDelay(Duration.ofMillis(50))
+                .maxReconnectDelay(Duration.ofMillis(200))
+                .build();
+        try (LocalStubServer stub = LocalStubServer.builder()
+                .streamInterval(Duration.ofMillis(100))
+                .badStreamEvents(1)
+                .build()
+                .start();
+             HackerNewsClient streamClient = new HackerNewsClient(HackerNewsClientConfig.builder()
+                     .baseUrl(stub.getBaseUrl())
+                     .streamPolicy(policy)
+                     .build())) {
+            // The first connection delivers its snapshot and then a value of the wrong shape
+            CountDownLatch deliveries = new CountDownLatch(3);
+            try (StreamSubscription<List<Long>> subscription = streamClient.subscribeTopStories(stories -> {
+                if (stories != null && !stories.isEmpty()) {
+                    deliveries.countDown();
+                }
+            })) {
+                Assert.assertTrue(deliveries.await(10, TimeUnit.SECONDS),
+                        "Stream should keep delivering after a bad event: " + subscription + ". RequestId: " + requestId);
+                Assert.assertFalse(subscription.isClosed(), "Subscription should stay open. RequestId: " + requestId);
+                Assert.assertTrue(subscription.getReconnects() >= 1,
+                        "Bad event should have forced a reconnect: " + subscription + ". RequestId: " + requestId);
+                logger.info("Recovered from a bad event: {}, RequestId: {}", subscription, requestId);
+            }
+        }
+    }
+}